@@ -0,0 +1,206 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.os.Debug;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of the allocations made while showing and hiding snackbars once the app is
+ * warmed up. The snackbars are created up front, a cycle is showing one, letting it be displayed
+ * and hiding it again. On a {@link VirtualTimeScheduler} a cycle runs within a single main thread
+ * task, so no layout pass or drawing takes part. On a {@link LooperScheduler} it runs in real time,
+ * through the layout pass, idle deferral, frame alignment and both animations, and only the
+ * allocations of the main thread are counted.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnackbarAllocationTest {
+    private static final String TEXT = "Saved";
+    private static final int WARM_UP_CYCLES = 3;
+    private static final int MEASURED_CYCLES = 20;
+    private static final int LOOPER_CYCLE_DURATION = 100;
+    private static final long LOOPER_CYCLE_TIMEOUT = 5000;
+
+    private Instrumentation instrumentation;
+    private TestActivity activity;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Intent intent = new Intent(instrumentation.getTargetContext(), TestActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        activity = (TestActivity) instrumentation.startActivitySync(intent);
+        instrumentation.waitForIdleSync();
+    }
+
+    @After
+    public void tearDown() {
+        activity.finish();
+    }
+
+    @Test
+    public void warmedUpCyclesReuseTheViewAndItsLayoutParams() {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+                final SnackbarManager manager = new SnackbarManager(scheduler);
+                View firstView = null;
+                ViewGroup.LayoutParams firstParams = null;
+                for (int i = 0; i < WARM_UP_CYCLES; i++) {
+                    final TopSnackbar snackbar = makeSnackbar(manager);
+                    snackbar.show();
+                    scheduler.advanceBy(0);
+                    final View view = snackbar.getView();
+                    assertNotNull(view.getParent());
+                    if (null == firstView) {
+                        firstView = view;
+                        firstParams = view.getLayoutParams();
+                    } else {
+                        assertSame(firstView, view);
+                        assertSame(firstParams, view.getLayoutParams());
+                    }
+                    snackbar.hide();
+                    scheduler.runUntilIdle();
+                    assertNull(view.getParent());
+                }
+                manager.release();
+            }
+        });
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void warmedUpCyclesDoNotAllocate() {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+                final SnackbarManager manager = new SnackbarManager(scheduler);
+                final TopSnackbar[] snackbars = new TopSnackbar[WARM_UP_CYCLES + MEASURED_CYCLES];
+                for (int i = 0; i < snackbars.length; i++) {
+                    snackbars[i] = makeSnackbar(manager);
+                }
+                for (int i = 0; i < WARM_UP_CYCLES; i++) {
+                    runCycle(scheduler, snackbars[i]);
+                }
+
+                Debug.startAllocCounting();
+                Debug.resetThreadAllocCount();
+                for (int i = WARM_UP_CYCLES; i < snackbars.length; i++) {
+                    runCycle(scheduler, snackbars[i]);
+                }
+                final int allocations = Debug.getThreadAllocCount();
+                Debug.stopAllocCounting();
+                manager.release();
+
+                assertEquals(0, allocations);
+            }
+        });
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void warmedUpLooperCyclesDoNotAllocate() {
+        final SnackbarManager[] manager = new SnackbarManager[1];
+        final TopSnackbar[] snackbars = new TopSnackbar[WARM_UP_CYCLES + MEASURED_CYCLES];
+        final long[] outAnimationDuration = new long[1];
+        final CountingCallback callback = new CountingCallback();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                manager[0] = new SnackbarManager(new LooperScheduler(Looper.getMainLooper()));
+                final SnackBarConfiguration configuration = new SnackBarConfiguration.Builder()
+                        .setDuration(LOOPER_CYCLE_DURATION).build();
+                for (int i = 0; i < snackbars.length; i++) {
+                    snackbars[i] = makeSnackbar(manager[0]).setSnackBarConfiguration(configuration);
+                    snackbars[i].setLifecycleCallback(callback);
+                }
+                outAnimationDuration[0] = snackbars[0].getOutAnimation().getDuration();
+            }
+        });
+        for (int i = 0; i < WARM_UP_CYCLES; i++) {
+            runLooperCycle(snackbars[i], callback, outAnimationDuration[0]);
+        }
+
+        final int[] allocations = new int[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                Debug.startAllocCounting();
+                Debug.resetThreadAllocCount();
+            }
+        });
+        for (int i = WARM_UP_CYCLES; i < snackbars.length; i++) {
+            runLooperCycle(snackbars[i], callback, outAnimationDuration[0]);
+        }
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                allocations[0] = Debug.getThreadAllocCount();
+                Debug.stopAllocCounting();
+                manager[0].release();
+            }
+        });
+
+        assertEquals(0, allocations[0]);
+    }
+
+    /**
+     * Shows the snackbar on the main thread and waits until it has been dismissed and its out
+     * animation has finished.
+     */
+    private void runLooperCycle(final TopSnackbar snackbar, CountingCallback callback, long outAnimationDuration) {
+        final int removedCount = callback.removedCount;
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                snackbar.show();
+            }
+        });
+        final long deadline = SystemClock.uptimeMillis() + LOOPER_CYCLE_TIMEOUT;
+        while (removedCount == callback.removedCount) {
+            assertTrue(SystemClock.uptimeMillis() < deadline);
+            SystemClock.sleep(10);
+        }
+        SystemClock.sleep(outAnimationDuration + 100);
+        instrumentation.waitForIdleSync();
+    }
+
+    private TopSnackbar makeSnackbar(SnackbarManager manager) {
+        return TopSnackbar.makeText(activity, TEXT, Style.INFO).setSnackbarManager(manager);
+    }
+
+    private static void runCycle(VirtualTimeScheduler scheduler, TopSnackbar snackbar) {
+        snackbar.show();
+        scheduler.advanceBy(0);
+        snackbar.hide();
+        scheduler.runUntilIdle();
+    }
+
+    static final class CountingCallback implements LifecycleCallback {
+        volatile int removedCount;
+
+        @Override
+        public void onDisplayed() {
+        }
+
+        @Override
+        public void onRemoved() {
+            removedCount++;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented test of a {@link SnackbarManager} running on a {@link VirtualTimeScheduler}. All of
+ * it runs within a single main thread task, so no layout pass or looper message can move a
+ * snackbar on, only the virtual clock does.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnackbarManagerVirtualTimeTest {
+    private static final int DURATION = 1000;
+
+    private Instrumentation instrumentation;
+    private TestActivity activity;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Intent intent = new Intent(instrumentation.getTargetContext(), TestActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        activity = (TestActivity) instrumentation.startActivitySync(intent);
+        instrumentation.waitForIdleSync();
+    }
+
+    @After
+    public void tearDown() {
+        activity.finish();
+    }
+
+    @Test
+    public void virtualTimeDisplaysAndDismissesSnackbars() {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+                final SnackbarManager manager = new SnackbarManager(scheduler);
+                final RecordingCallback firstCallback = new RecordingCallback();
+                final RecordingCallback secondCallback = new RecordingCallback();
+                final TopSnackbar first = makeSnackbar("first", manager, firstCallback);
+                final TopSnackbar second = makeSnackbar("second", manager, secondCallback);
+                first.show();
+                second.show();
+
+                scheduler.advanceBy(0);
+                assertEquals(1, firstCallback.displayedCount);
+                assertEquals(0, secondCallback.displayedCount);
+                assertNotNull(first.getView().getParent());
+
+                final long visibleDuration = DURATION + first.getInAnimation().getDuration();
+                final long outAnimationDuration = first.getOutAnimation().getDuration();
+                scheduler.advanceBy(visibleDuration - 1);
+                assertEquals(0, firstCallback.removedCount);
+
+                scheduler.advanceBy(1);
+                assertEquals(1, firstCallback.removedCount);
+                assertEquals(0, secondCallback.displayedCount);
+
+                scheduler.advanceBy(outAnimationDuration);
+                assertEquals(1, secondCallback.displayedCount);
+
+                scheduler.runUntilIdle();
+                assertEquals(1, secondCallback.removedCount);
+                assertEquals(0, scheduler.getPendingCount());
+                manager.release();
+            }
+        });
+    }
+
+    @Test
+    public void hiddenSnackbarIsRemovedWithoutRunningTheClock() {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+                final SnackbarManager manager = new SnackbarManager(scheduler);
+                final RecordingCallback callback = new RecordingCallback();
+                final TopSnackbar snackbar = makeSnackbar("hidden", manager, callback);
+                snackbar.show();
+                scheduler.advanceBy(0);
+                assertEquals(1, callback.displayedCount);
+                final View view = snackbar.getView();
+
+                snackbar.hide();
+                assertEquals(1, callback.removedCount);
+                assertNull(view.getParent());
+                manager.release();
+            }
+        });
+    }
+
+    @Test
+    public void leavingViewIsPooledOnceItsOutAnimationHasFinished() {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                final VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+                final SnackbarManager manager = new SnackbarManager(scheduler);
+                final VirtualTimeScheduler otherScheduler = new VirtualTimeScheduler();
+                final SnackbarManager otherManager = new SnackbarManager(otherScheduler);
+                final TopSnackbar leaving = makeSnackbar("leaving", manager, null);
+                leaving.show();
+                scheduler.advanceBy(0);
+                final View leavingView = leaving.getView();
+                leaving.hide();
+
+                // Another manager displays a snackbar of the same style while the view leaves.
+                final TopSnackbar during = makeSnackbar("during", otherManager, null);
+                during.show();
+                otherScheduler.advanceBy(0);
+                assertNotSame(leavingView, during.getView());
+                during.hide();
+                otherScheduler.runUntilIdle();
+
+                scheduler.advanceBy(leaving.getOutAnimation().getDuration());
+                assertNull(leavingView.getAnimation());
+                final TopSnackbar after = makeSnackbar("after", otherManager, null);
+                after.show();
+                otherScheduler.advanceBy(0);
+                assertSame(leavingView, after.getView());
+                otherManager.release();
+                manager.release();
+            }
+        });
+    }
+
+    private TopSnackbar makeSnackbar(String text, SnackbarManager manager, LifecycleCallback callback) {
+        final TopSnackbar snackbar = TopSnackbar.makeText(activity, text, Style.INFO)
+                .setSnackBarConfiguration(new SnackBarConfiguration.Builder().setDuration(DURATION).build())
+                .setSnackbarManager(manager);
+        snackbar.setLifecycleCallback(callback);
+        return snackbar;
+    }
+
+    static final class RecordingCallback implements LifecycleCallback {
+        int displayedCount;
+        int removedCount;
+
+        @Override
+        public void onDisplayed() {
+            displayedCount++;
+        }
+
+        @Override
+        public void onRemoved() {
+            removedCount++;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.widget.FrameLayout;
+
+
+/**
+ * A bare activity that instrumented tests show snackbars in.
+ */
+public class TestActivity extends Activity {
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(new FrameLayout(this));
+    }
+}
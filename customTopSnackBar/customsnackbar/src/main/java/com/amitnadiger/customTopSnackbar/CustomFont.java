@@ -12,6 +12,11 @@ public class CustomFont extends MetricAffectingSpan {
      * An <code>LruCache</code> for previously loaded typefaces.
      */
     private static LruCache<String, Typeface> sTypefaceCache = new LruCache<String, Typeface>(5);
+    /**
+     * An <code>LruCache</code> for previously created spans. A span only holds its typeface, so
+     * one can be set on any number of texts.
+     */
+    private static LruCache<String, CustomFont> sSpanCache = new LruCache<String, CustomFont>(5);
 
     private Typeface mTypeface;
 
@@ -30,6 +35,22 @@ public class CustomFont extends MetricAffectingSpan {
         }
     }
 
+    /**
+     * Returns the span for the {@link Typeface}, reusing the one created by an earlier call.
+     */
+    static CustomFont obtain(Context context, String typefaceName) {
+        CustomFont span = sSpanCache.get(typefaceName);
+        if (span == null) {
+            span = new CustomFont(context, typefaceName);
+            sSpanCache.put(typefaceName, span);
+        }
+        return span;
+    }
+
+    Typeface getTypeface() {
+        return mTypeface;
+    }
+
     @Override
     public void updateMeasureState(TextPaint p) {
         p.setTypeface(mTypeface);
@@ -2,22 +2,35 @@ package com.amitnadiger.customTopSnackbar;
 
 
 
+import android.content.Context;
+import android.util.SparseArray;
 import android.view.View;
 import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
 import android.view.animation.TranslateAnimation;
 
 
+/**
+ * Builds the animations of the snackbars of one {@link SnackbarManager} and keeps them for reuse.
+ * An {@link Animation} keeps the state of its run, so an instance must never be shared by views
+ * animated at the same time. A manager animates one snackbar in and one out at a time, so its
+ * snackbars can share them, but those of different managers can not.
+ */
 final public class DefaultAnimationsBuilder {
     private static final long DURATION = 400;
-    private static Animation slideInDownAnimation, slideOutUpAnimation;
-    private static int lastInAnimationHeight, lastOutAnimationHeight;
+    private Animation slideInDownAnimation, slideOutUpAnimation;
+    private int lastInAnimationHeight, lastOutAnimationHeight;
+    /**
+     * Animations loaded from resources, by resource id.
+     */
+    private final SparseArray<Animation> loadedAnimations = new SparseArray<Animation>();
 
-    private DefaultAnimationsBuilder() {
+    DefaultAnimationsBuilder() {
         /* no-op */
     }
 
-    static Animation buildDefaultSlideInDownAnimation(View snackBarView) {
-        if (!areLastMeasuredInAnimationHeightAndCurrentEqual(snackBarView) || (slideInDownAnimation != null)) {
+    Animation buildDefaultSlideInDownAnimation(View snackBarView) {
+        if (!areLastMeasuredInAnimationHeightAndCurrentEqual(snackBarView) || (slideInDownAnimation == null)) {
             slideInDownAnimation = new TranslateAnimation(
                     0, 0,  // X: from, to
                     -snackBarView.getMeasuredHeight(), 0); // Y: from, to
@@ -27,8 +40,8 @@ final public class DefaultAnimationsBuilder {
         return slideInDownAnimation;
     }
 
-    static Animation buildDefaultSlideOutUpAnimation(View snackBarView) {
-        if (!areLastMeasuredOutAnimationHeightAndCurrentEqual(snackBarView) || (slideOutUpAnimation != null)) {
+    Animation buildDefaultSlideOutUpAnimation(View snackBarView) {
+        if (!areLastMeasuredOutAnimationHeightAndCurrentEqual(snackBarView) || (slideOutUpAnimation == null)) {
             slideOutUpAnimation = new TranslateAnimation(
                     0, 0,   // X: from, to
                     0, -snackBarView.getMeasuredHeight()  // Y: from, to
@@ -40,11 +53,20 @@ final public class DefaultAnimationsBuilder {
         return slideOutUpAnimation;
     }
 
-    private static boolean areLastMeasuredOutAnimationHeightAndCurrentEqual(View snackBarView) {
+    Animation loadAnimation(Context context, int animationResId) {
+        Animation animation = loadedAnimations.get(animationResId);
+        if (animation == null) {
+            animation = AnimationUtils.loadAnimation(context.getApplicationContext(), animationResId);
+            loadedAnimations.put(animationResId, animation);
+        }
+        return animation;
+    }
+
+    private boolean areLastMeasuredOutAnimationHeightAndCurrentEqual(View snackBarView) {
         return areLastMeasuredAnimationHeightAndCurrentEqual(lastOutAnimationHeight, snackBarView);
     }
 
-    private static boolean areLastMeasuredInAnimationHeightAndCurrentEqual(View SnackbarView) {
+    private boolean areLastMeasuredInAnimationHeightAndCurrentEqual(View SnackbarView) {
         return areLastMeasuredAnimationHeightAndCurrentEqual(lastInAnimationHeight, SnackbarView);
     }
 
@@ -52,12 +74,12 @@ final public class DefaultAnimationsBuilder {
         return lastHeight == snackBarView.getMeasuredHeight();
     }
 
-    private static void setLastInAnimationHeight(int lastInAnimationHeight) {
-        DefaultAnimationsBuilder.lastInAnimationHeight = lastInAnimationHeight;
+    private void setLastInAnimationHeight(int lastInAnimationHeight) {
+        this.lastInAnimationHeight = lastInAnimationHeight;
     }
 
-    private static void setLastOutAnimationHeight(int lastOutAnimationHeight) {
-        DefaultAnimationsBuilder.lastOutAnimationHeight = lastOutAnimationHeight;
+    private void setLastOutAnimationHeight(int lastOutAnimationHeight) {
+        this.lastOutAnimationHeight = lastOutAnimationHeight;
     }
 }
 
@@ -0,0 +1,10 @@
+package com.amitnadiger.customTopSnackbar;
+
+
+public interface ExpiryCallback {
+    /**
+     * Will be called when your snackBar has been dropped from the queue because its
+     * time to live passed before it could be displayed.
+     */
+     void onExpired();
+}
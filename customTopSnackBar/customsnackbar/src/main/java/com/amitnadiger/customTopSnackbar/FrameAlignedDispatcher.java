@@ -0,0 +1,137 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+
+/**
+ * Collects snackbar operations that are due and runs them together at the start of the next
+ * frame, from a {@link Choreographer} callback, instead of at an arbitrary point within a frame.
+ * Must only be used from the thread of the {@link SnackbarManager}.
+ */
+final class FrameAlignedDispatcher implements Choreographer.FrameCallback {
+
+    interface Target {
+        /**
+         * Runs an operation that has been deferred to the current frame.
+         *
+         * @param operation              The message id of the operation.
+         * @param snackbar               The snackbar the operation belongs to.
+         * @param latenessInMilliseconds How long after its intended time the operation runs.
+         */
+        void onFrameOperation(int operation, TopSnackbar snackbar, long latenessInMilliseconds);
+    }
+
+    private static final class PendingOperation {
+        int operation;
+        TopSnackbar snackbar;
+        long intendedTime;
+        boolean isCancelled;
+    }
+
+    private final Target target;
+    private ArrayList<PendingOperation> pending = new ArrayList<PendingOperation>();
+    private ArrayList<PendingOperation> running = new ArrayList<PendingOperation>();
+    /**
+     * Operations that have been run or dropped, reused so posting does not allocate.
+     */
+    private final ArrayList<PendingOperation> free = new ArrayList<PendingOperation>();
+    private Choreographer choreographer;
+    private boolean isFrameScheduled;
+
+    FrameAlignedDispatcher(Target target) {
+        this.target = target;
+    }
+
+    /**
+     * Runs the operation at the start of the next frame, together with all other operations
+     * that become due before it.
+     *
+     * @param operation    The message id of the operation.
+     * @param snackbar     The snackbar the operation belongs to.
+     * @param intendedTime The uptime in milliseconds at which the operation was due.
+     */
+    void post(int operation, TopSnackbar snackbar, long intendedTime) {
+        final int last = free.size() - 1;
+        final PendingOperation pendingOperation = last >= 0 ? free.remove(last) : new PendingOperation();
+        pendingOperation.operation = operation;
+        pendingOperation.snackbar = snackbar;
+        pendingOperation.intendedTime = intendedTime;
+        pendingOperation.isCancelled = false;
+        pending.add(pendingOperation);
+        if (!isFrameScheduled) {
+            if (null == choreographer) {
+                choreographer = Choreographer.getInstance();
+            }
+            isFrameScheduled = true;
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    boolean hasPending(int operation, TopSnackbar snackbar) {
+        for (int i = 0; i < pending.size(); i++) {
+            if (pending.get(i).snackbar == snackbar && pending.get(i).operation == operation) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops all pending operations of the given snackbar.
+     */
+    void remove(TopSnackbar snackbar) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            if (pending.get(i).snackbar == snackbar) {
+                recycle(pending.remove(i));
+            }
+        }
+        // Operations of the frame currently being run are skipped instead.
+        for (int i = 0; i < running.size(); i++) {
+            if (running.get(i).snackbar == snackbar) {
+                running.get(i).isCancelled = true;
+            }
+        }
+    }
+
+    /**
+     * Drops all pending operations.
+     */
+    void clear() {
+        for (int i = 0; i < pending.size(); i++) {
+            recycle(pending.get(i));
+        }
+        pending.clear();
+        for (int i = 0; i < running.size(); i++) {
+            running.get(i).isCancelled = true;
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        isFrameScheduled = false;
+        final long frameTime = frameTimeNanos / 1000000L;
+        // Operations posted while running this frame's operations go to the next frame.
+        final ArrayList<PendingOperation> due = pending;
+        pending = running;
+        running = due;
+        for (int i = 0; i < due.size(); i++) {
+            final PendingOperation operation = due.get(i);
+            if (operation.isCancelled) {
+                continue;
+            }
+            target.onFrameOperation(operation.operation, operation.snackbar,
+                    Math.max(0, frameTime - operation.intendedTime));
+        }
+        for (int i = 0; i < due.size(); i++) {
+            recycle(due.get(i));
+        }
+        due.clear();
+    }
+
+    private void recycle(PendingOperation operation) {
+        operation.snackbar = null;
+        free.add(operation);
+    }
+}
@@ -0,0 +1,16 @@
+package com.amitnadiger.customTopSnackbar;
+
+
+public interface FrameLatenessListener {
+    int OPERATION_ATTACH = 0;
+    int OPERATION_REMOVE = 1;
+
+    /**
+     * Will be called when a frame aligned operation of a snackbar has been run.
+     *
+     * @param snackbar               The snackbar the operation belongs to.
+     * @param operation              {@link #OPERATION_ATTACH} or {@link #OPERATION_REMOVE}.
+     * @param latenessInMilliseconds How long after its intended time the operation has been run.
+     */
+     void onFrameLateness(TopSnackbar snackbar, int operation, long latenessInMilliseconds);
+}
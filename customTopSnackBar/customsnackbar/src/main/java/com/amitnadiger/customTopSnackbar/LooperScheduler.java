@@ -0,0 +1,70 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+
+/**
+ * A {@link SnackbarScheduler} running the work as messages on a {@link Looper}, in real time.
+ * This is the scheduler of the default {@link SnackbarManager}, on the main thread.
+ */
+public final class LooperScheduler extends Handler implements SnackbarScheduler {
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+
+    private Target target;
+
+    /**
+     * @param looper The {@link Looper} to run the work on.
+     */
+    public LooperScheduler(Looper looper) {
+        super(checkLooper(looper));
+    }
+
+    private static Looper checkLooper(Looper looper) {
+        if (null == looper) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        return looper;
+    }
+
+    @Override
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return Looper.myLooper() == getLooper();
+    }
+
+    @Override
+    public void schedule(int what, Object obj, int arg1, long delayInMilliseconds) {
+        final Message message = obtainMessage(what, obj);
+        message.arg1 = arg1;
+        sendMessageDelayed(message, delayInMilliseconds);
+    }
+
+    @Override
+    public boolean isScheduled(int what, Object obj) {
+        return hasMessages(what, obj);
+    }
+
+    @Override
+    public void cancel(int what, Object obj) {
+        removeMessages(what, obj);
+    }
+
+    @Override
+    public void handleMessage(Message message) {
+        if (null != target) {
+            target.onDue(message.what, message.obj, message.arg1, message.getWhen());
+        }
+    }
+}
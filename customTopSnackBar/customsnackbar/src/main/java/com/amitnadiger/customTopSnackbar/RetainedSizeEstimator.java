@@ -0,0 +1,66 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+
+/**
+ * Roughly estimates the memory a queued {@link TopSnackbar} keeps alive. Only views that have
+ * already been built are counted, together with the bitmaps behind their drawables.
+ */
+final class RetainedSizeEstimator {
+    /**
+     * The shallow size of a {@link TopSnackbar} with its text, style and configuration references.
+     */
+    private static final int SNACKBAR_BYTES = 128;
+    /**
+     * The approximate shallow size of a view object including its layout params.
+     */
+    private static final int VIEW_BYTES = 512;
+
+    private RetainedSizeEstimator() {
+        /* no-op */
+    }
+
+    static long estimate(TopSnackbar snackbar) {
+        long bytes = SNACKBAR_BYTES;
+        if (null != snackbar.getText()) {
+            bytes += 2L * snackbar.getText().length();
+        }
+        final View view = snackbar.peekView();
+        if (null != view) {
+            bytes += estimate(view);
+        }
+        return bytes;
+    }
+
+    private static long estimate(View view) {
+        long bytes = VIEW_BYTES + estimate(view.getBackground());
+        if (view instanceof ImageView) {
+            bytes += estimate(((ImageView) view).getDrawable());
+        } else if (view instanceof TextView && null != ((TextView) view).getText()) {
+            bytes += 2L * ((TextView) view).getText().length();
+        } else if (view instanceof ViewGroup) {
+            final ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                bytes += estimate(viewGroup.getChildAt(i));
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimate(Drawable drawable) {
+        if (drawable instanceof BitmapDrawable) {
+            final Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            if (null != bitmap) {
+                return bitmap.getByteCount();
+            }
+        }
+        return 0;
+    }
+}
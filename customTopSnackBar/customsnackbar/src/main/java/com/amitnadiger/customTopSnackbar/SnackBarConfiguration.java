@@ -5,6 +5,38 @@ public class SnackBarConfiguration {
     public static final int DURATION_INFINITE = -1;
     public static final int DURATION_SHORT = 3000;
     public static final int DURATION_LONG = 5000;
+    public static final int TIME_TO_LIVE_INFINITE = -1;
+    public static final int PRIORITY_LOW = -1;
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 1;
+
+    /**
+     * Display the snackbar inside the activity's content view or the supplied ViewGroup.
+     */
+    public static final int DISPLAY_MODE_CONTENT = 0;
+    /**
+     * Display the snackbar in its own application sub-window on top of the activity, so
+     * showing and hiding it never lays out the activity's view hierarchy.
+     */
+    public static final int DISPLAY_MODE_WINDOW = 1;
+    /**
+     * Display the snackbar in a persistent overlay container that is attached once per activity
+     * and lays out its children without laying out the rest of the content view.
+     */
+    public static final int DISPLAY_MODE_HOST_LAYOUT = 2;
+
+    /**
+     * Queue the snackbar behind the ones already queued.
+     */
+    public static final int SHOW_MODE_QUEUE = 0;
+    /**
+     * Show the snackbar in place of the displayed one, which is obsolete. If both are displayed
+     * the same way, the content of the displayed view crossfades to the new one, without a
+     * removal and a new attach. Queued snackbars with the same key are dropped.
+     *
+     * @see TopSnackbar#setKey(String)
+     */
+    public static final int SHOW_MODE_REPLACE = 1;
 
     public static final SnackBarConfiguration DEFAULT;
 
@@ -15,11 +47,27 @@ public class SnackBarConfiguration {
     final int durationInMilliseconds;
     final int inAnimationResId;
     final int outAnimationResId;
+    final int displayMode;
+    final int timeToLiveInMilliseconds;
+    final int priority;
+    final int maxIdleDeferralInMilliseconds;
+    final boolean isFrameAligned;
+    final int maxScrollHoldInMilliseconds;
+    final int showMode;
+    final int crossfadeDurationInMilliseconds;
 
     private SnackBarConfiguration(Builder builder) {
         this.durationInMilliseconds = builder.durationInMilliseconds;
         this.inAnimationResId = builder.inAnimationResId;
         this.outAnimationResId = builder.outAnimationResId;
+        this.displayMode = builder.displayMode;
+        this.timeToLiveInMilliseconds = builder.timeToLiveInMilliseconds;
+        this.priority = builder.priority;
+        this.maxIdleDeferralInMilliseconds = builder.maxIdleDeferralInMilliseconds;
+        this.isFrameAligned = builder.isFrameAligned;
+        this.maxScrollHoldInMilliseconds = builder.maxScrollHoldInMilliseconds;
+        this.showMode = builder.showMode;
+        this.crossfadeDurationInMilliseconds = builder.crossfadeDurationInMilliseconds;
     }
 
     @Override
@@ -28,6 +76,14 @@ public class SnackBarConfiguration {
                 "durationInMilliseconds=" + durationInMilliseconds +
                 ", inAnimationResId=" + inAnimationResId +
                 ", outAnimationResId=" + outAnimationResId +
+                ", displayMode=" + displayMode +
+                ", timeToLiveInMilliseconds=" + timeToLiveInMilliseconds +
+                ", priority=" + priority +
+                ", maxIdleDeferralInMilliseconds=" + maxIdleDeferralInMilliseconds +
+                ", isFrameAligned=" + isFrameAligned +
+                ", maxScrollHoldInMilliseconds=" + maxScrollHoldInMilliseconds +
+                ", showMode=" + showMode +
+                ", crossfadeDurationInMilliseconds=" + crossfadeDurationInMilliseconds +
                 '}';
     }
 
@@ -35,6 +91,14 @@ public class SnackBarConfiguration {
         private int durationInMilliseconds = DURATION_SHORT;
         private int inAnimationResId = 0;
         private int outAnimationResId = 0;
+        private int displayMode = DISPLAY_MODE_CONTENT;
+        private int timeToLiveInMilliseconds = TIME_TO_LIVE_INFINITE;
+        private int priority = PRIORITY_NORMAL;
+        private int maxIdleDeferralInMilliseconds = 0;
+        private boolean isFrameAligned = false;
+        private int maxScrollHoldInMilliseconds = 0;
+        private int showMode = SHOW_MODE_QUEUE;
+        private int crossfadeDurationInMilliseconds = 200;
 
         public Builder setDuration(final int duration) {
             this.durationInMilliseconds = duration;
@@ -54,6 +118,86 @@ public class SnackBarConfiguration {
             return this;
         }
 
+        /**
+         * One of {@link #DISPLAY_MODE_CONTENT}, {@link #DISPLAY_MODE_WINDOW} or
+         * {@link #DISPLAY_MODE_HOST_LAYOUT}.
+         */
+        public Builder setDisplayMode(final int displayMode) {
+            this.displayMode = displayMode;
+
+            return this;
+        }
+
+        /**
+         * The time in milliseconds a snackbar may wait in the queue. If it has not been displayed
+         * by then, it is dropped without being displayed. Defaults to {@link #TIME_TO_LIVE_INFINITE}.
+         */
+        public Builder setTimeToLive(final int timeToLive) {
+            this.timeToLiveInMilliseconds = timeToLive;
+
+            return this;
+        }
+
+        /**
+         * The priority used when the queue overflows, e.g. {@link #PRIORITY_HIGH}.
+         */
+        public Builder setPriority(final int priority) {
+            this.priority = priority;
+
+            return this;
+        }
+
+        /**
+         * Defers building and attaching the snackbar's view until the main thread is idle, e.g.
+         * after a screen transition, but at most for the given time. 0 disables the deferral.
+         * Snackbars with {@link #PRIORITY_HIGH} are never deferred.
+         */
+        public Builder setMaxIdleDeferral(final int maxIdleDeferral) {
+            this.maxIdleDeferralInMilliseconds = maxIdleDeferral;
+
+            return this;
+        }
+
+        /**
+         * Runs the attach, in animation start and removal of the snackbar at the start of a frame,
+         * together with all other frame aligned operations that are due.
+         */
+        public Builder setFrameAligned(final boolean isFrameAligned) {
+            this.isFrameAligned = isFrameAligned;
+
+            return this;
+        }
+
+        /**
+         * Holds back the attach and removal of the snackbar while the user scrolls its activity,
+         * but at most for the given time per transition. The display duration does not run down
+         * while a scroll is in progress. 0 disables the hold.
+         */
+        public Builder setMaxScrollHold(final int maxScrollHold) {
+            this.maxScrollHoldInMilliseconds = maxScrollHold;
+
+            return this;
+        }
+
+        /**
+         * One of {@link #SHOW_MODE_QUEUE} or {@link #SHOW_MODE_REPLACE}.
+         */
+        public Builder setShowMode(final int showMode) {
+            this.showMode = showMode;
+
+            return this;
+        }
+
+        /**
+         * The duration in milliseconds of the crossfade from the replaced snackbar's content in
+         * {@link #SHOW_MODE_REPLACE}. Defaults to 200.
+         */
+        public Builder setCrossfadeDuration(final int crossfadeDuration) {
+            this.crossfadeDurationInMilliseconds = crossfadeDuration;
+
+            return this;
+        }
+
         public SnackBarConfiguration build() {
             return new SnackBarConfiguration(this);
         }
@@ -0,0 +1,23 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+
+import java.util.List;
+
+
+public interface SnackbarAggregator {
+    /**
+     * Will be called when queued snackbars are folded into a summary because the backlog passed
+     * the collapse threshold of the {@link SnackbarQueueConfiguration}.
+     *
+     * @param activity The activity the folded snackbars belong to.
+     * @param category The category of the folded snackbars, or <code>null</code> if they are
+     *                 folded whatever their category.
+     * @param count    The number of snackbars the summary stands for, counting the ones folded
+     *                 into earlier summaries.
+     * @param texts    The texts of the folded snackbars, in queue order.
+     * @return The summary snackbar, e.g. "7 new notifications", shown in place of the folded
+     * ones. <code>null</code> keeps them queued.
+     */
+    TopSnackbar aggregate(Activity activity, String category, int count, List<CharSequence> texts);
+}
@@ -0,0 +1,88 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+
+/**
+ * Tells whether the window of an {@link Activity} is busy scrolling.
+ * <p>
+ * One signal is created per activity. It subscribes once to the scroll changes of the whole view
+ * tree, which are reported for any scrolling container (RecyclerView, ListView, ScrollView, ...)
+ * without replacing their own scroll listeners. The window counts as busy from the first scroll
+ * change until no further change has been reported for {@link #SETTLE_DELAY} milliseconds.
+ * </p>
+ */
+final class SnackbarBusySignal implements ViewTreeObserver.OnScrollChangedListener {
+    /**
+     * The time without scroll changes after which scrolling is considered settled.
+     */
+    static final long SETTLE_DELAY = 150;
+
+    interface Listener {
+        /**
+         * Will be called when the signal changes between busy and settled.
+         */
+        void onBusyChanged(SnackbarBusySignal signal, boolean isBusy);
+    }
+
+    private final View decorView;
+    private Listener listener;
+    private boolean isBusy;
+
+    private final Runnable settleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isBusy = false;
+            if (null != listener) {
+                listener.onBusyChanged(SnackbarBusySignal.this, false);
+            }
+        }
+    };
+
+    private SnackbarBusySignal(View decorView) {
+        this.decorView = decorView;
+        decorView.getViewTreeObserver().addOnScrollChangedListener(this);
+    }
+
+    /**
+     * Returns the signal of the given {@link Activity}, creating it the first time it is requested.
+     *
+     * @param activity The {@link Activity} to observe.
+     * @return The signal, or <code>null</code> if the activity has no decor view yet.
+     */
+    static SnackbarBusySignal obtain(Activity activity) {
+        final View decorView = activity.getWindow().peekDecorView();
+        if (null == decorView) {
+            return null;
+        }
+        final Object tag = decorView.getTag(R.id.top_snackbar_busy_signal);
+        if (tag instanceof SnackbarBusySignal) {
+            return (SnackbarBusySignal) tag;
+        }
+        final SnackbarBusySignal signal = new SnackbarBusySignal(decorView);
+        decorView.setTag(R.id.top_snackbar_busy_signal, signal);
+        return signal;
+    }
+
+    @Override
+    public void onScrollChanged() {
+        decorView.removeCallbacks(settleRunnable);
+        decorView.postDelayed(settleRunnable, SETTLE_DELAY);
+        if (!isBusy) {
+            isBusy = true;
+            if (null != listener) {
+                listener.onBusyChanged(this, true);
+            }
+        }
+    }
+
+    boolean isBusy() {
+        return isBusy;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+}
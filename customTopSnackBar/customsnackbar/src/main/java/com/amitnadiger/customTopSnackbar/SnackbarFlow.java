@@ -0,0 +1,61 @@
+package com.amitnadiger.customTopSnackbar;
+
+
+/**
+ * Minimal reactive-streams interfaces, shaped after <code>java.util.concurrent.Flow</code> which
+ * is not available on all supported API levels. Any push source can be adapted to
+ * {@link Publisher} and bound to an activity through a {@link SnackbarSubscriber}.
+ */
+public final class SnackbarFlow {
+
+    private SnackbarFlow() {
+        /* no-op */
+    }
+
+    /**
+     * A producer of items that are pushed to a {@link Subscriber} as demanded.
+     */
+    public interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items.
+     */
+    public interface Subscriber<T> {
+        /**
+         * Will be called once, before any other method, with the subscription to request items from.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Will be called for each item, at most as many times as items have been requested.
+         */
+        void onNext(T item);
+
+        /**
+         * Will be called when the publisher failed. No further items will be delivered.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Will be called when the publisher has no more items.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a {@link Publisher} and a {@link Subscriber}.
+     */
+    public interface Subscription {
+        /**
+         * Adds the given number of items to the demand of the subscriber.
+         */
+        void request(long n);
+
+        /**
+         * Stops the publisher from delivering further items.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,33 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+
+/**
+ * Places the view of a {@link TopSnackbar} at the top of one kind of {@link ViewGroup}, with the
+ * layout params of that kind. Adapters are looked up in the {@link SnackbarHostAdapterRegistry}
+ * by the class of the host, once per class.
+ */
+public interface SnackbarHostAdapter {
+    /**
+     * Will be called once per host class, the answer is cached.
+     *
+     * @param hostClass The class of a host.
+     * @return <code>true</code> if snackbars can be added to hosts of the class.
+     */
+    boolean canHost(Class<? extends ViewGroup> hostClass);
+
+    /**
+     * Adds the snackbar view at the top edge of the host, on top of its content. The positions of
+     * the host's other children should not change. The view's current layout params may be reused
+     * if they are of the host's type, their width and height are the size the snackbar asks for.
+     *
+     * @param host         The host.
+     * @param snackbarView The detached view of the snackbar.
+     * @param topMargin    The distance to keep from the top edge of the host, in pixels.
+     * @return <code>false</code> if this host cannot show the snackbar, it is added to the
+     * content view of the activity instead.
+     */
+    boolean addView(ViewGroup host, View snackbarView, int topMargin);
+}
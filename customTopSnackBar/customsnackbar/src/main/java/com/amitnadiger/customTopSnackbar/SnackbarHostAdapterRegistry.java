@@ -0,0 +1,270 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.HorizontalScrollView;
+import android.widget.LinearLayout;
+import android.widget.RelativeLayout;
+import android.widget.ScrollView;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The {@link SnackbarHostAdapter}s used to add snackbar views to a {@link ViewGroup}, whether it
+ * has been supplied or is the fragment view or the content view of the activity.
+ * <p>
+ * Built in are adapters for {@link FrameLayout}, <code>CoordinatorLayout</code>,
+ * <code>ConstraintLayout</code> and {@link RelativeLayout}, which all overlay the view on their
+ * other children. The AndroidX and support library layouts are recognized by class name, so the
+ * library does not depend on them, their layout params are created through reflection that is
+ * resolved once. Adapters registered by the app take precedence, the latest first.
+ * </p>
+ * <p>
+ * The adapter of a host class is looked up once and cached. Hosts without an adapter leave the
+ * snackbar to the content view of the activity, placed at the top of the host. These are e.g. a
+ * {@link LinearLayout}, which would move its other children down to make room, or an
+ * {@link android.widget.AdapterView} or a {@link ScrollView}, which cannot take another child.
+ * </p>
+ */
+public final class SnackbarHostAdapterRegistry {
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+    private static SnackbarHostAdapterRegistry INSTANCE;
+
+    private final List<SnackbarHostAdapter> adapters = new ArrayList<SnackbarHostAdapter>();
+    /**
+     * The adapter of each host class looked up so far, <code>null</code> if there is none.
+     */
+    private final Map<Class<?>, SnackbarHostAdapter> adaptersByHostClass = new HashMap<Class<?>, SnackbarHostAdapter>();
+
+    private SnackbarHostAdapterRegistry() {
+        adapters.add(new ParentLayoutAdapter("androidx.coordinatorlayout.widget.CoordinatorLayout", false));
+        adapters.add(new ParentLayoutAdapter("android.support.design.widget.CoordinatorLayout", false));
+        adapters.add(new ParentLayoutAdapter("androidx.constraintlayout.widget.ConstraintLayout", true));
+        adapters.add(new ParentLayoutAdapter("android.support.constraint.ConstraintLayout", true));
+        adapters.add(new FrameLayoutAdapter());
+        adapters.add(new RelativeLayoutAdapter());
+    }
+
+    /**
+     * @return The registry shared by the whole application.
+     */
+    public static synchronized SnackbarHostAdapterRegistry getInstance() {
+        if (null == INSTANCE) {
+            INSTANCE = new SnackbarHostAdapterRegistry();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Registers an adapter for a kind of host, e.g. a custom layout. It is asked before the
+     * adapters registered earlier and the built in ones.
+     */
+    public synchronized void register(SnackbarHostAdapter adapter) {
+        if (null == adapter) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        adapters.add(0, adapter);
+        adaptersByHostClass.clear();
+    }
+
+    /**
+     * @return The adapter for the host's class, or <code>null</code> if no adapter can host snackbars.
+     */
+    synchronized SnackbarHostAdapter getAdapter(ViewGroup host) {
+        final Class<? extends ViewGroup> hostClass = host.getClass();
+        if (adaptersByHostClass.containsKey(hostClass)) {
+            return adaptersByHostClass.get(hostClass);
+        }
+        SnackbarHostAdapter found = null;
+        for (SnackbarHostAdapter adapter : adapters) {
+            if (adapter.canHost(hostClass)) {
+                found = adapter;
+                break;
+            }
+        }
+        adaptersByHostClass.put(hostClass, found);
+        return found;
+    }
+
+    /**
+     * @return <code>true</code> if the class or one of its super classes has the given name.
+     */
+    static boolean isKindOf(Class<?> hostClass, String className) {
+        for (Class<?> current = hostClass; null != current; current = current.getSuperclass()) {
+            if (className.equals(current.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The width the view asks for, match parent by default.
+     */
+    private static int getRequestedWidth(ViewGroup.LayoutParams params) {
+        return null != params ? params.width : ViewGroup.LayoutParams.MATCH_PARENT;
+    }
+
+    /**
+     * @return The height the view asks for, wrap content by default.
+     */
+    private static int getRequestedHeight(ViewGroup.LayoutParams params) {
+        return null != params ? params.height : ViewGroup.LayoutParams.WRAP_CONTENT;
+    }
+
+    /**
+     * Adds the view last, so it is drawn on top of the other children, at the top left.
+     */
+    static final class FrameLayoutAdapter implements SnackbarHostAdapter {
+        private static final String NESTED_SCROLL_VIEW = "androidx.core.widget.NestedScrollView";
+
+        @Override
+        public boolean canHost(Class<? extends ViewGroup> hostClass) {
+            // Scroll views are frame layouts that accept a single child only.
+            return FrameLayout.class.isAssignableFrom(hostClass) && !ScrollView.class.isAssignableFrom(hostClass)
+                    && !HorizontalScrollView.class.isAssignableFrom(hostClass) && !isKindOf(hostClass, NESTED_SCROLL_VIEW);
+        }
+
+        @Override
+        public boolean addView(ViewGroup host, View snackbarView, int topMargin) {
+            final ViewGroup.LayoutParams requested = snackbarView.getLayoutParams();
+            final FrameLayout.LayoutParams params;
+            if (requested instanceof FrameLayout.LayoutParams) {
+                params = (FrameLayout.LayoutParams) requested;
+            } else {
+                params = new FrameLayout.LayoutParams(getRequestedWidth(requested), getRequestedHeight(requested));
+            }
+            params.gravity = Gravity.TOP | Gravity.LEFT;
+            params.topMargin = topMargin;
+            host.addView(snackbarView, params);
+            return true;
+        }
+    }
+
+    /**
+     * Adds the view last, aligned to the top of the parent.
+     */
+    static final class RelativeLayoutAdapter implements SnackbarHostAdapter {
+        @Override
+        public boolean canHost(Class<? extends ViewGroup> hostClass) {
+            return RelativeLayout.class.isAssignableFrom(hostClass);
+        }
+
+        @Override
+        public boolean addView(ViewGroup host, View snackbarView, int topMargin) {
+            final ViewGroup.LayoutParams requested = snackbarView.getLayoutParams();
+            final RelativeLayout.LayoutParams params;
+            if (requested instanceof RelativeLayout.LayoutParams) {
+                params = (RelativeLayout.LayoutParams) requested;
+            } else {
+                params = new RelativeLayout.LayoutParams(getRequestedWidth(requested), getRequestedHeight(requested));
+            }
+            params.addRule(RelativeLayout.ALIGN_PARENT_TOP, RelativeLayout.TRUE);
+            params.topMargin = topMargin;
+            host.addView(snackbarView, params);
+            return true;
+        }
+    }
+
+    /**
+     * Adds the view last to a <code>CoordinatorLayout</code>, with top gravity, or to a
+     * <code>ConstraintLayout</code>, constrained to the top, start and end of the parent. The
+     * layout is recognized by name, its layout params are created through reflection resolved
+     * on first use.
+     */
+    static final class ParentLayoutAdapter implements SnackbarHostAdapter {
+        /**
+         * <code>ConstraintLayout.LayoutParams.PARENT_ID</code>.
+         */
+        private static final int PARENT_ID = 0;
+
+        private final String layoutClassName;
+        private final boolean isConstraintLayout;
+        private Class<?> paramsClass;
+        private Constructor<?> paramsConstructor;
+        private Field gravityField;
+        private Field[] parentConstraintFields;
+        private Method validateMethod;
+        private boolean isResolved;
+
+        ParentLayoutAdapter(String layoutClassName, boolean isConstraintLayout) {
+            this.layoutClassName = layoutClassName;
+            this.isConstraintLayout = isConstraintLayout;
+        }
+
+        @Override
+        public boolean canHost(Class<? extends ViewGroup> hostClass) {
+            return isKindOf(hostClass, layoutClassName) && resolve(hostClass);
+        }
+
+        /**
+         * Looks up the layout params class and its members, once.
+         *
+         * @return <code>false</code> if they could not be found, e.g. in an unknown version.
+         */
+        private boolean resolve(Class<?> hostClass) {
+            if (isResolved) {
+                return null != paramsConstructor;
+            }
+            isResolved = true;
+            try {
+                final Class<?> paramsClass = Class.forName(layoutClassName + "$LayoutParams", false,
+                        hostClass.getClassLoader());
+                if (isConstraintLayout) {
+                    parentConstraintFields = new Field[]{paramsClass.getField("topToTop"),
+                            paramsClass.getField("startToStart"), paramsClass.getField("endToEnd")};
+                    try {
+                        validateMethod = paramsClass.getMethod("validate");
+                    } catch (NoSuchMethodException e) {
+                        validateMethod = null;
+                    }
+                } else {
+                    gravityField = paramsClass.getField("gravity");
+                }
+                paramsConstructor = paramsClass.getConstructor(int.class, int.class);
+                this.paramsClass = paramsClass;
+            } catch (Exception e) {
+                paramsConstructor = null;
+            }
+            return null != paramsConstructor;
+        }
+
+        @Override
+        public boolean addView(ViewGroup host, View snackbarView, int topMargin) {
+            final ViewGroup.LayoutParams requested = snackbarView.getLayoutParams();
+            try {
+                final ViewGroup.MarginLayoutParams params;
+                if (paramsClass.isInstance(requested)) {
+                    params = (ViewGroup.MarginLayoutParams) requested;
+                } else {
+                    params = (ViewGroup.MarginLayoutParams) paramsConstructor.newInstance(
+                            getRequestedWidth(requested), getRequestedHeight(requested));
+                }
+                params.topMargin = topMargin;
+                if (isConstraintLayout) {
+                    for (Field field : parentConstraintFields) {
+                        field.setInt(params, PARENT_ID);
+                    }
+                    if (null != validateMethod) {
+                        validateMethod.invoke(params);
+                    }
+                } else {
+                    gravityField.setInt(params, Gravity.TOP);
+                }
+                host.addView(snackbarView, params);
+                return true;
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+
+/**
+ * A full size overlay container that is added once to the content view of an {@link Activity}
+ * and stays attached. Snackbar views are added to and removed from this container only.
+ * <p>
+ * Layout requests coming from its children are not passed on to the parent. Since the
+ * container always matches its parent, the children are measured and laid out locally
+ * instead, so showing or hiding a snackbar never lays out the rest of the screen.
+ * </p>
+ */
+final class SnackbarHostLayout extends FrameLayout {
+    private boolean mLocalLayoutPending;
+    /**
+     * Receives the location of this container, so computing an offset does not allocate.
+     */
+    private final int[] mLocation = new int[2];
+
+    private final Runnable mLocalLayout = new Runnable() {
+        @Override
+        public void run() {
+            layoutChildrenNow();
+        }
+    };
+
+    private SnackbarHostLayout(Context context) {
+        super(context);
+    }
+
+    /**
+     * Returns the host container of the given {@link Activity}, creating and attaching it to
+     * the content view the first time it is requested.
+     *
+     * @param activity The {@link Activity} whose content view hosts the container.
+     * @return The host container, or <code>null</code> if the content view is not available.
+     */
+    static SnackbarHostLayout obtain(Activity activity) {
+        final ViewGroup contentView = activity.findViewById(android.R.id.content);
+        if (null == contentView) {
+            return null;
+        }
+        final Object tag = contentView.getTag(R.id.top_snackbar_host_layout);
+        if (tag instanceof SnackbarHostLayout && contentView == ((View) tag).getParent()) {
+            return (SnackbarHostLayout) tag;
+        }
+        final SnackbarHostLayout hostLayout = new SnackbarHostLayout(activity);
+        hostLayout.setId(R.id.top_snackbar_host_layout);
+        contentView.addView(hostLayout,
+                new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+        contentView.setTag(R.id.top_snackbar_host_layout, hostLayout);
+        return hostLayout;
+    }
+
+    @Override
+    public void requestLayout() {
+        if (getWidth() == 0 || getHeight() == 0) {
+            // Not laid out by the parent yet, the first pass has to go through the hierarchy.
+            super.requestLayout();
+            return;
+        }
+        // Mark this subtree as dirty without propagating to the parent and lay it out locally.
+        forceLayout();
+        if (!mLocalLayoutPending) {
+            mLocalLayoutPending = true;
+            postOnAnimation(mLocalLayout);
+        }
+    }
+
+    /**
+     * Measures and lays out the children of this container within its current bounds.
+     */
+    void layoutChildrenNow() {
+        if (mLocalLayoutPending) {
+            mLocalLayoutPending = false;
+            removeCallbacks(mLocalLayout);
+        }
+        if (getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+        forceLayout();
+        measure(MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.EXACTLY));
+        layout(getLeft(), getTop(), getRight(), getBottom());
+    }
+
+    /**
+     * Computes the offset of the given anchor view relative to this container.
+     *
+     * @param anchor   The view whose position is requested.
+     * @param outPoint Receives the x and y offset.
+     */
+    void getOffsetOf(View anchor, int[] outPoint) {
+        getLocationInWindow(mLocation);
+        anchor.getLocationInWindow(outPoint);
+        outPoint[0] -= mLocation[0];
+        outPoint[1] -= mLocation[1];
+    }
+}
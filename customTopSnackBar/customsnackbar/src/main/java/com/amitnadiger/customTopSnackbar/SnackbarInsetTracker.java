@@ -0,0 +1,225 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.res.Resources;
+import android.os.Build;
+import android.view.DisplayCutout;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowInsets;
+import android.view.WindowManager;
+
+
+/**
+ * Tracks how far the top of an {@link Activity}'s window is covered by the status bar, a display
+ * cutout or an overlaid action bar.
+ * <p>
+ * One tracker is created per activity. It listens to layout changes of the decor view, which
+ * follow every change of the window insets, and of the action bar, and caches the resulting
+ * offset until one of them changes again. From Android 6.0 Marshmallow on the insets, including
+ * the display cutout, are read from the decor view's root insets; before that they are derived from
+ * the window's flags. No insets listener is set, so one set by the app is kept.
+ * </p>
+ * <p>
+ * A missing or detached action bar is looked up again once the decor view has been laid out, so
+ * an action bar shown or a toolbar set up with <code>setSupportActionBar</code> after the first
+ * snackbar is picked up, without a lookup for every snackbar of a window that has none.
+ * </p>
+ */
+final class SnackbarInsetTracker implements View.OnLayoutChangeListener {
+    private static final String[] TOOLBAR_CLASS_NAMES = {
+            "android.widget.Toolbar",
+            "androidx.appcompat.widget.Toolbar",
+            "android.support.v7.widget.Toolbar"
+    };
+    /**
+     * How deep into the content view a toolbar is looked for, e.g. in an app bar layout inside a
+     * coordinator layout.
+     */
+    private static final int MAX_TOOLBAR_DEPTH = 4;
+
+    private static int sSystemActionBarContainerId = -1;
+    private static int sAppActionBarContainerId = -1;
+    private static int sStatusBarHeightId = -1;
+
+    private final Activity activity;
+    private final View decorView;
+    private View actionBar;
+    private final int[] location = new int[2];
+    private boolean isDirty = true;
+    /**
+     * The bottom of the covered area, in window coordinates.
+     */
+    private int coveredBottom;
+
+    private SnackbarInsetTracker(Activity activity, View decorView) {
+        this.activity = activity;
+        this.decorView = decorView;
+
+        decorView.addOnLayoutChangeListener(this);
+    }
+
+    /**
+     * Returns the tracker of the given {@link Activity}, creating it the first time it is requested.
+     *
+     * @param activity The {@link Activity} to track.
+     * @return The tracker, or <code>null</code> if the activity has no decor view yet.
+     */
+    static SnackbarInsetTracker obtain(Activity activity) {
+        final View decorView = activity.getWindow().peekDecorView();
+        if (null == decorView) {
+            return null;
+        }
+        final Object tag = decorView.getTag(R.id.top_snackbar_inset_tracker);
+        if (tag instanceof SnackbarInsetTracker) {
+            return (SnackbarInsetTracker) tag;
+        }
+        final SnackbarInsetTracker tracker = new SnackbarInsetTracker(activity, decorView);
+        decorView.setTag(R.id.top_snackbar_inset_tracker, tracker);
+        return tracker;
+    }
+
+    /**
+     * @param anchor The view a snackbar is displayed on top of.
+     * @return The margin needed to keep a snackbar placed at the top of the anchor below the
+     * status bar, display cutout and action bar.
+     */
+    int getTopOffset(View anchor) {
+        if (isDirty) {
+            if (null == actionBar || null == actionBar.getWindowToken()) {
+                resolveActionBar();
+            }
+            coveredBottom = computeCoveredBottom();
+            isDirty = false;
+        }
+        anchor.getLocationInWindow(location);
+        return Math.max(0, coveredBottom - location[1]);
+    }
+
+    @Override
+    public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                               int oldLeft, int oldTop, int oldRight, int oldBottom) {
+        isDirty = true;
+    }
+
+    private int computeCoveredBottom() {
+        int covered = getSystemInsetTop();
+        if (null != actionBar && View.VISIBLE == actionBar.getVisibility()) {
+            actionBar.getLocationInWindow(location);
+            covered = Math.max(covered, location[1] + actionBar.getHeight());
+        }
+        return covered;
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private int getSystemInsetTop() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            final WindowInsets insets = decorView.getRootWindowInsets();
+            return null != insets ? getInsetTop(insets) : 0;
+        }
+        // Root insets are only available as of Android 6.0 Marshmallow. Before that, the status bar
+        // only covers the content when the window requested a translucent status bar or lays out
+        // its content behind a visible status bar.
+        final int flags = activity.getWindow().getAttributes().flags;
+        if ((flags & WindowManager.LayoutParams.FLAG_FULLSCREEN) != 0) {
+            return 0;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+                && (flags & WindowManager.LayoutParams.FLAG_TRANSLUCENT_STATUS) != 0) {
+            return getStatusBarHeight();
+        }
+        final int visibility = decorView.getSystemUiVisibility();
+        if ((visibility & View.SYSTEM_UI_FLAG_LAYOUT_FULLSCREEN) != 0
+                && (visibility & View.SYSTEM_UI_FLAG_FULLSCREEN) == 0) {
+            return getStatusBarHeight();
+        }
+        return 0;
+    }
+
+    @TargetApi(28)
+    private static int getInsetTop(WindowInsets insets) {
+        int insetTop = insets.getSystemWindowInsetTop();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            final DisplayCutout cutout = insets.getDisplayCutout();
+            if (null != cutout) {
+                insetTop = Math.max(insetTop, cutout.getSafeInsetTop());
+            }
+        }
+        return insetTop;
+    }
+
+    private int getStatusBarHeight() {
+        if (-1 == sStatusBarHeightId) {
+            sStatusBarHeightId = Resources.getSystem().getIdentifier("status_bar_height", "dimen", "android");
+        }
+        return sStatusBarHeightId > 0 ? Resources.getSystem().getDimensionPixelSize(sStatusBarHeightId) : 0;
+    }
+
+    /**
+     * Looks up the action bar, and starts listening to its layout changes if it has changed.
+     */
+    private void resolveActionBar() {
+        View found = findActionBarContainer(activity);
+        if (null == found) {
+            found = findToolbar(activity.findViewById(android.R.id.content), MAX_TOOLBAR_DEPTH);
+        }
+        if (found == actionBar) {
+            return;
+        }
+        if (null != actionBar) {
+            actionBar.removeOnLayoutChangeListener(this);
+        }
+        actionBar = found;
+        if (null != actionBar) {
+            actionBar.addOnLayoutChangeListener(this);
+        }
+        isDirty = true;
+    }
+
+    private static View findActionBarContainer(Activity activity) {
+        if (-1 == sSystemActionBarContainerId) {
+            sSystemActionBarContainerId = Resources.getSystem().getIdentifier("action_bar_container", "id", "android");
+        }
+        View container = null;
+        if (sSystemActionBarContainerId > 0) {
+            container = activity.findViewById(sSystemActionBarContainerId);
+        }
+        if (null == container) {
+            // AppCompat themes use their own action bar container, merged into the app's resources.
+            if (-1 == sAppActionBarContainerId) {
+                sAppActionBarContainerId = activity.getResources()
+                        .getIdentifier("action_bar_container", "id", activity.getPackageName());
+            }
+            if (sAppActionBarContainerId > 0) {
+                container = activity.findViewById(sAppActionBarContainerId);
+            }
+        }
+        return container instanceof ViewGroup && null != container.getWindowToken() ? container : null;
+    }
+
+    /**
+     * @return The first attached toolbar found in the view, e.g. one set as the action bar with
+     * <code>setSupportActionBar</code>, or <code>null</code>.
+     */
+    private static View findToolbar(View view, int depth) {
+        if (null == view || null == view.getWindowToken()) {
+            return null;
+        }
+        for (String className : TOOLBAR_CLASS_NAMES) {
+            if (SnackbarHostAdapterRegistry.isKindOf(view.getClass(), className)) {
+                return view;
+            }
+        }
+        if (depth > 0 && view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                final View toolbar = findToolbar(group.getChildAt(i), depth - 1);
+                if (null != toolbar) {
+                    return toolbar;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -3,33 +3,279 @@ package com.amitnadiger.customTopSnackbar;
 
 import android.annotation.TargetApi;
 import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
-import android.content.res.Resources;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Message;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.ViewTreeObserver;
-import android.view.Window;
-import android.view.WindowManager;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityManager;
-import android.widget.AdapterView;
 import android.widget.FrameLayout;
-import android.widget.RelativeLayout;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.List;
+import java.util.PriorityQueue;
 
 
-public class SnackbarManager extends Handler {
+public class SnackbarManager {
     private static final String TAG = "SnackbarManager";
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+    /**
+     * Marks an operation message that has already been held for the maximum time.
+     */
+    private static final int ARG_HOLD_EXHAUSTED = 1;
     private static SnackbarManager INSTANCE;
-    private final Queue<TopSnackbar> mSnackbarQueue;
+    private static final Comparator<TopSnackbar> EXPIRY_ORDER = new Comparator<TopSnackbar>() {
+        @Override
+        public int compare(TopSnackbar lhs, TopSnackbar rhs) {
+            return lhs.getExpiryTime() < rhs.getExpiryTime() ? -1 : (lhs.getExpiryTime() == rhs.getExpiryTime() ? 0 : 1);
+        }
+    };
+    private final SnackbarScheduler mScheduler;
+    /**
+     * Used on the manager's thread only. An array deque, so queueing a snackbar does not allocate.
+     * Releasing a snackbar may enqueue another one, so nothing is released while it is iterated.
+     */
+    private final Deque<TopSnackbar> mSnackbarQueue;
+    /**
+     * The queued {@link TopSnackbar}s that have a time to live, ordered by their expiry time. The
+     * entry of a snackbar is removed when it is released.
+     */
+    private final PriorityQueue<TopSnackbar> mExpiryIndex;
+    private long mExpiredCount;
+    private SnackbarQueueConfiguration mQueueConfiguration = SnackbarQueueConfiguration.DEFAULT;
+    /**
+     * The sum of the estimated bytes retained by the queued {@link TopSnackbar}s.
+     */
+    private long mRetainedBytes;
+    private long mOverflowCount;
+    private long mCollapsedCount;
+
+    /**
+     * The {@link TopSnackbar} whose view is attached once the manager's thread becomes idle.
+     */
+    private TopSnackbar mIdleDeferredSnackbar;
+    private final MessageQueue.IdleHandler mIdleAddHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            final long start = beginWork();
+            final TopSnackbar snackbar = mIdleDeferredSnackbar;
+            mIdleDeferredSnackbar = null;
+            // The message is gone if the deferral bound has passed or the snackbar has been removed.
+            if (null != snackbar && mScheduler.isScheduled(Messages.ADD_TOPSNACKBAR_TO_VIEW, snackbar)) {
+                mScheduler.cancel(Messages.ADD_TOPSNACKBAR_TO_VIEW, snackbar);
+                if (!holdWhileBusy(Messages.ADD_TOPSNACKBAR_TO_VIEW, snackbar, 0)) {
+                    runOperation(Messages.ADD_TOPSNACKBAR_TO_VIEW, snackbar, mScheduler.uptimeMillis());
+                }
+            }
+            endWork(start);
+            return false;
+        }
+    };
+
+    private FrameLatenessListener mFrameLatenessListener;
+    private final FrameAlignedDispatcher mFrameAlignedDispatcher = new FrameAlignedDispatcher(
+            new FrameAlignedDispatcher.Target() {
+                @Override
+                public void onFrameOperation(int operation, TopSnackbar snackbar, long latenessInMilliseconds) {
+                    final long start = beginWork();
+                    performOperation(operation, snackbar);
+                    endWork(start);
+                    if (null != mFrameLatenessListener) {
+                        mFrameLatenessListener.onFrameLateness(snackbar,
+                                Messages.ADD_TOPSNACKBAR_TO_VIEW == operation
+                                        ? FrameLatenessListener.OPERATION_ATTACH : FrameLatenessListener.OPERATION_REMOVE,
+                                latenessInMilliseconds);
+                    }
+                }
+            });
+
+    /**
+     * Layout listeners that have run, kept so attaching a view does not create a new one.
+     */
+    private final List<LayoutListener> mFreeLayoutListeners = new ArrayList<LayoutListener>();
+    /**
+     * The copy of the queue the prerendering walks, kept so walking it does not allocate. Its
+     * entries are cleared as they are walked, so it holds no released snackbar.
+     */
+    private TopSnackbar[] mQueueSnapshot = new TopSnackbar[0];
+    private final int[] mOffset = new int[2];
+    private final DefaultAnimationsBuilder mAnimationsBuilder = new DefaultAnimationsBuilder();
+
+    private SnackbarRecorder mRecorder;
+    /**
+     * Whether the time spent in the manager's callbacks on its thread is summed up, see
+     * {@link #getWorkNanos()}.
+     */
+    private boolean mIsWorkTimed;
+    private long mWorkNanos;
+
+    /**
+     * Attach and remove operations held back while the activity of their snackbar is scrolling.
+     */
+    private final List<HeldOperation> mHeldOperations = new ArrayList<HeldOperation>();
+    /**
+     * Held operations that have been released, kept so holding one does not create a new one.
+     */
+    private final List<HeldOperation> mFreeHeldOperations = new ArrayList<HeldOperation>();
+    /**
+     * The operations being released, from the end of the held ones that are released further up
+     * the stack.
+     */
+    private final List<HeldOperation> mReleasedHeldOperations = new ArrayList<HeldOperation>();
+    /**
+     * Removed snackbars whose views are still animated out of their parents.
+     */
+    private final List<TopSnackbar> mLeavingTopSnackbars = new ArrayList<TopSnackbar>();
+    private final SnackbarBusySignal.Listener mBusyListener = new SnackbarBusySignal.Listener() {
+        @Override
+        public void onBusyChanged(SnackbarBusySignal signal, boolean isBusy) {
+            if (isBusy) {
+                pauseDismissalTimer(signal);
+            } else {
+                releaseHeldOperations(signal, null);
+            }
+        }
+    };
+
+    /**
+     * The {@link TopSnackbar}s of activities that are being re-created, waiting for their new activity.
+     */
+    private final List<RetainedState> mRetainedStates = new ArrayList<RetainedState>();
+    /**
+     * The application whose activities are tracked while the manager holds snackbars, or null.
+     */
+    private Application mTrackedApplication;
+    private final Application.ActivityLifecycleCallbacks mActivityLifecycleCallbacks =
+            new Application.ActivityLifecycleCallbacks() {
+                @Override
+                public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                    for (RetainedState state : mRetainedStates) {
+                        if (state.isReplacedBy(activity)) {
+                            rebindTopSnackbars(state, activity);
+                            return;
+                        }
+                    }
+                }
+
+                @Override
+                public void onActivityStarted(Activity activity) {
+                }
+
+                @Override
+                public void onActivityResumed(Activity activity) {
+                }
+
+                @Override
+                public void onActivityPaused(Activity activity) {
+                }
+
+                @Override
+                public void onActivityStopped(Activity activity) {
+                }
+
+                @Override
+                public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+                }
+
+                @Override
+                public void onActivityDestroyed(Activity activity) {
+                    if (activity.isChangingConfigurations()) {
+                        retainTopSnackbars(activity);
+                    }
+                }
+            };
+
     private SnackbarManager() {
-        mSnackbarQueue = new LinkedBlockingQueue<TopSnackbar>();
+        this(new LooperScheduler(Looper.myLooper()));
+    }
+
+    /**
+     * Creates a manager of its own, independent of the one used by default. Show a
+     * {@link TopSnackbar} on it with {@link TopSnackbar#setSnackbarManager(SnackbarManager)}.
+     *
+     * @param scheduler The {@link SnackbarScheduler} the manager runs on, e.g. a
+     *                  {@link VirtualTimeScheduler} in tests.
+     */
+    public SnackbarManager(SnackbarScheduler scheduler) {
+        if (null == scheduler) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        mScheduler = scheduler;
+        mSnackbarQueue = new ArrayDeque<TopSnackbar>();
+        mExpiryIndex = new PriorityQueue<TopSnackbar>(11, EXPIRY_ORDER);
+        scheduler.setTarget(new SnackbarScheduler.Target() {
+            @Override
+            public void onDue(int what, Object obj, int arg1, long dueTime) {
+                final long start = beginWork();
+                handleDueWork(what, obj, arg1, dueTime);
+                endWork(start);
+            }
+        });
+    }
+
+    /**
+     * Starts recording the traffic of this manager into a trace that can be played back with
+     * {@link SnackbarReplay}: enqueues, displays, and hides and cancels requested by the app.
+     * Must be called on the manager's thread.
+     *
+     * @param recorder The recorder, or null to stop recording. It is not closed.
+     */
+    public void setRecorder(SnackbarRecorder recorder) {
+        mRecorder = recorder;
+    }
+
+    private void recordEnqueue(TopSnackbar snackbar) {
+        if (null != mRecorder && !snackbar.isInManager()) {
+            mRecorder.recordEnqueue(snackbar, mScheduler.uptimeMillis());
+        }
+    }
+
+    SnackbarScheduler getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * @return The builder of the animations of this manager's snackbars.
+     */
+    DefaultAnimationsBuilder getAnimationsBuilder() {
+        return mAnimationsBuilder;
+    }
+
+    /**
+     * Starts or stops summing up the time spent in the manager's callbacks on its thread.
+     */
+    void setWorkTimed(boolean isWorkTimed) {
+        mIsWorkTimed = isWorkTimed;
+    }
+
+    /**
+     * @return The time spent in the manager's callbacks on its thread while timed, in nanoseconds.
+     */
+    long getWorkNanos() {
+        return mWorkNanos;
+    }
+
+    private long beginWork() {
+        return mIsWorkTimed ? System.nanoTime() : 0;
+    }
+
+    private void endWork(long start) {
+        if (mIsWorkTimed && 0 != start) {
+            mWorkNanos += System.nanoTime() - start;
+        }
     }
 
     /**
@@ -98,312 +344,1432 @@ public class SnackbarManager extends Handler {
      * @param snackbar The {@link TopSnackbar} to be displayed.
      */
     void add(TopSnackbar snackbar) {
-        mSnackbarQueue.add(snackbar);
+        recordEnqueue(snackbar);
+        final Object section = SnackbarTrace.beginSection(SnackbarTrace.ENQUEUE, snackbar);
+        final boolean isEnqueued = insert(snackbar);
+        SnackbarTrace.endSection(section);
+        if (!isEnqueued) {
+            return;
+        }
+        collapseBacklog();
         displayTopSnackbar();
+        prerenderBehindDisplayed();
     }
 
     /**
-     * Displays the next {@link TopSnackbar} within the queue.
+     * Inserts several {@link TopSnackbar}s to be displayed, in iteration order. They are enqueued
+     * together on the manager's thread, with a single dispatch and a single look at the queue.
+     *
+     * @param snackbars The {@link TopSnackbar}s to be displayed.
      */
-    private void displayTopSnackbar() {
-        if (mSnackbarQueue.isEmpty()) {
+    void addAll(Collection<TopSnackbar> snackbars) {
+        if (snackbars.isEmpty()) {
             return;
         }
-        // First peek whether the snackbar has an activity.
-        final TopSnackbar currentSnackbar = mSnackbarQueue.peek();
-        // If both activity is null we poll the snackbar off the queue.
-        if (null == currentSnackbar.getActivity()) {
-            mSnackbarQueue.poll();
-        }
-
-        if (!currentSnackbar.isShowing()) {
-            // Display the TopSnackbar
-            sendMessage(currentSnackbar, Messages.ADD_TOPSNACKBAR_TO_VIEW);
-            if (null != currentSnackbar.getLifecycleCallback()) {
-                currentSnackbar.getLifecycleCallback().onDisplayed();
-            }
+        final List<TopSnackbar> batch = new ArrayList<TopSnackbar>(snackbars);
+        if (mScheduler.isCurrentThread()) {
+            enqueueBatch(batch);
         } else {
-            sendMessageDelayed(currentSnackbar, Messages.DISPLAY_TOPSNACKBAR, calculateSnackBarDuration(currentSnackbar));
+            mScheduler.schedule(Messages.ENQUEUE_BATCH, batch, 0, 0);
         }
     }
 
-    private long calculateSnackBarDuration(TopSnackbar snackbar) {
-        long snackbarDuration = snackbar.getSnackBarConfiguration().durationInMilliseconds;
-        snackbarDuration += snackbar.getInAnimation().getDuration();
-        snackbarDuration += snackbar.getOutAnimation().getDuration();
-        return snackbarDuration;
+    private void enqueueBatch(List<TopSnackbar> batch) {
+        for (TopSnackbar snackbar : batch) {
+            recordEnqueue(snackbar);
+            final Object section = SnackbarTrace.beginSection(SnackbarTrace.ENQUEUE, snackbar);
+            insert(snackbar);
+            SnackbarTrace.endSection(section);
+        }
+        collapseBacklog();
+        displayTopSnackbar();
+        prerenderBehindDisplayed();
     }
 
     /**
-     * Sends a {@link TopSnackbar} within a {@link Message}.
+     * Enqueues a {@link TopSnackbar} as configured by its show mode.
      *
-     * @param snackbar  The {@link TopSnackbar} that should be sent.
-     * @param messageId The {@link Message} id.
+     * @return <code>false</code> if the snackbar has been rejected.
      */
-    private void sendMessage(TopSnackbar snackbar, final int messageId) {
-        final Message message = obtainMessage(messageId);
-        message.obj = snackbar;
-        sendMessage(message);
+    private boolean insert(TopSnackbar snackbar) {
+        if (SnackBarConfiguration.SHOW_MODE_REPLACE != snackbar.getSnackBarConfiguration().showMode) {
+            return enqueue(snackbar);
+        }
+        if (!snackbar.isInManager()) {
+            dropSupersededTopSnackbars(snackbar);
+        }
+        if (!enqueue(snackbar)) {
+            return false;
+        }
+        replaceCurrentTopSnackbar(snackbar);
+        return true;
     }
 
     /**
-     * Sends a {@link TopSnackbar} within a delayed {@link Message}.
-     *
-     * @param snackbar  The {@link TopSnackbar} that should be sent.
-     * @param messageId The {@link Message} id.
-     * @param delay     The delay in milliseconds.
-     */
-    private void sendMessageDelayed(TopSnackbar snackbar, final int messageId, final long delay) {
-        Message message = obtainMessage(messageId);
-        message.obj = snackbar;
-        sendMessageDelayed(message, delay);
-    }
-
-    /*
-     * (non-Javadoc)
-     *
-     * @see android.os.Handler#handleMessage(android.os.Message)
+     * Drops the queued {@link TopSnackbar}s that have not been displayed yet and have the same key
+     * as the incoming one.
      */
-    @Override
-    public void handleMessage(Message message) {
-        final TopSnackbar snackbar = (TopSnackbar) message.obj;
-        if (null == snackbar) {
+    private void dropSupersededTopSnackbars(TopSnackbar incoming) {
+        if (null == incoming.getKey()) {
             return;
         }
-        switch (message.what) {
-            case Messages.DISPLAY_TOPSNACKBAR: {
-                displayTopSnackbar();
-                break;
-            }
-
-            case Messages.ADD_TOPSNACKBAR_TO_VIEW: {
-                addTopSnackbarToView(snackbar);
-                break;
-            }
-
-            case Messages.REMOVE_TOPSNACKBAR: {
-                removeTopSnackbar(snackbar);
-                if (null != snackbar.getLifecycleCallback()) {
-                    snackbar.getLifecycleCallback().onRemoved();
+        List<TopSnackbar> superseded = null;
+        final Iterator<TopSnackbar> iterator = mSnackbarQueue.iterator();
+        while (iterator.hasNext()) {
+            final TopSnackbar queued = iterator.next();
+            if (State.QUEUED == queued.getState() && incoming.getKey().equals(queued.getKey())) {
+                iterator.remove();
+                if (null == superseded) {
+                    superseded = new ArrayList<TopSnackbar>();
                 }
-                break;
+                superseded.add(queued);
             }
-
-            default: {
-                super.handleMessage(message);
-                break;
+        }
+        // Released once the queue is no longer iterated, their listeners may enqueue again.
+        if (null != superseded) {
+            for (TopSnackbar queued : superseded) {
+                dropQueuedTopSnackbar(queued);
             }
         }
     }
 
     /**
-     * Adds a {@link TopSnackbar} to the {@link TopSnackbar} of it's {@link Activity}.
-     *
-     * @param topSnackbar The {@link TopSnackbar} that should be added.
+     * Moves an enqueued {@link TopSnackbar} in front of all snackbars that have not been displayed
+     * yet and replaces the displayed one with it. If it can, it takes over the displayed view,
+     * else the displayed snackbar is hidden.
      */
-    private void addTopSnackbarToView(final TopSnackbar topSnackbar) {
-        // don't add if it is already showing
-        if (topSnackbar.isShowing()) {
+    private void replaceCurrentTopSnackbar(TopSnackbar incoming) {
+        mSnackbarQueue.remove(incoming);
+        final TopSnackbar current = mSnackbarQueue.peek();
+        if (null == current || current.getState() < State.ATTACHING) {
+            if (null != current && State.PREPARING == current.getState()) {
+                // Its attach is due, but it is no longer the next one.
+                removeAllMessagesForTopSnackbar(current);
+                current.setState(State.QUEUED);
+            }
+            mSnackbarQueue.addFirst(incoming);
             return;
         }
+        mSnackbarQueue.poll();
+        mSnackbarQueue.addFirst(incoming);
+        mSnackbarQueue.addFirst(current);
+        if (State.SHOWING == current.getState() && !current.isAwaitingHost() && incoming.canTakeOverViewOf(current)) {
+            crossfadeTopSnackbar(current, incoming);
+        } else {
+            removeTopSnackbar(current);
+        }
+    }
 
-        final View topSnackbarView = topSnackbar.getView();
-
-        if (null == topSnackbarView.getParent()) {
-            ViewGroup.LayoutParams params = topSnackbarView.getLayoutParams();
-            if (null == params) {
-                params =
-                        new ViewGroup.MarginLayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-            }
-            // display topsnackbar in ViewGroup if it has been supplied
-            if (null != topSnackbar.getViewGroup()) {
-                final ViewGroup snackbarViewGroup = topSnackbar.getViewGroup();
-                if (shouldAddViewWithoutPosition(snackbarViewGroup)) {
-                    snackbarViewGroup.addView(topSnackbarView, params);
-                } else {
-                    snackbarViewGroup.addView(topSnackbarView, 0, params);
-                }
-            } else {
-
-                Activity activity = topSnackbar.getActivity();
-                if (null == activity || activity.isFinishing()) {
-                    return;
-                }
-                handleTranslucentActionBar((ViewGroup.MarginLayoutParams) params, activity);
-                handleActionBarOverlay((ViewGroup.MarginLayoutParams) params, activity);
-                //todo : Layout is hard coaded to ConstraintLayout : should be detect the type of layout based on viewGroup. .
-                if(((ViewGroup) topSnackbar.getFragmentView())!= null) {
-                    ((ViewGroup) topSnackbar.getFragmentView()).addView(topSnackbarView, params);
-                } else {
-                    ((ViewGroup)activity.findViewById(android.R.id.content)).addView(topSnackbarView, params);
-                }
+    /**
+     * Hands the displayed view of a {@link TopSnackbar} over to the one replacing it, without
+     * detaching it, and releases the replaced one.
+     */
+    private void crossfadeTopSnackbar(TopSnackbar current, TopSnackbar incoming) {
+        removeAllMessagesForTopSnackbar(current);
+        mSnackbarQueue.remove(current);
+        SnackbarTrace.endAsyncSection(SnackbarTrace.VISIBLE, current);
+        // The view prerendered for the incoming snackbar is not used.
+        discardPrerender(incoming);
+        incoming.takeOverView(current);
+        current.setState(State.HIDING);
+        current.detachActivity();
+        current.detachFragment();
+        current.detachViewGroup();
+        onTopSnackbarReleased(current);
+        updateRetainedBytes(incoming);
 
+        incoming.setState(State.SHOWING);
+        SnackbarTrace.beginAsyncSection(SnackbarTrace.VISIBLE, incoming);
+        dispatchOnDisplayed(incoming);
+        announceForAccessibilityCompat(incoming.getActivity(), incoming.getText());
+        final int duration = incoming.getSnackBarConfiguration().durationInMilliseconds;
+        if (SnackBarConfiguration.DURATION_INFINITE != duration) {
+            incoming.setDismissalTime(mScheduler.uptimeMillis() + duration);
+            sendMessageDelayed(incoming, Messages.REMOVE_TOPSNACKBAR, duration);
+            final SnackbarBusySignal signal = getBusySignal(incoming);
+            if (null != signal && signal.isBusy()) {
+                pauseDismissalTimer(signal);
             }
         }
+        schedulePrerender(incoming, incoming.getSnackBarConfiguration().crossfadeDurationInMilliseconds);
+    }
 
-        topSnackbarView.requestLayout(); // This is needed so the animation can use the measured with/height
-        ViewTreeObserver observer = topSnackbarView.getViewTreeObserver();
-        if (null != observer) {
-            observer.addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-                @Override
-                @TargetApi(16)
-                public void onGlobalLayout() {
-                    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
-                        topSnackbarView.getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                    } else {
-                        topSnackbarView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                    }
-
-                    if (topSnackbar.getInAnimation() != null) {
-                        topSnackbarView.startAnimation(topSnackbar.getInAnimation());
-                        announceForAccessibilityCompat(topSnackbar.getActivity(), topSnackbar.getText());
-                        if (SnackBarConfiguration.DURATION_INFINITE != topSnackbar.getSnackBarConfiguration().durationInMilliseconds) {
-                            sendMessageDelayed(topSnackbar, Messages.REMOVE_TOPSNACKBAR,
-                                    topSnackbar.getSnackBarConfiguration().durationInMilliseconds + topSnackbar.getInAnimation().getDuration());
-                        }
-                    }
-                }
-            });
+    /**
+     * Appends a {@link TopSnackbar} to the queue and, if it has a time to live, to the expiry index.
+     * If the queue is full, the overflow policy of the {@link SnackbarQueueConfiguration} decides
+     * whether a queued snackbar is dropped or the new one is rejected.
+     *
+     * @return <code>false</code> if the snackbar has been rejected.
+     */
+    private boolean enqueue(TopSnackbar snackbar) {
+        if (snackbar.isInManager()) {
+            // Already queued or displayed.
+            return false;
+        }
+        if (null == mTrackedApplication && null != snackbar.getActivity()) {
+            mTrackedApplication = snackbar.getActivity().getApplication();
+            mTrackedApplication.registerActivityLifecycleCallbacks(mActivityLifecycleCallbacks);
+        }
+        final long retainedBytes = RetainedSizeEstimator.estimate(snackbar);
+        if (!makeRoomFor(snackbar, retainedBytes, Collections.<TopSnackbar>emptyList())) {
+            mOverflowCount++;
+            onTopSnackbarReleased(snackbar);
+            return false;
         }
+        admit(snackbar, retainedBytes);
+        mSnackbarQueue.add(snackbar);
+        return true;
     }
 
-    private boolean shouldAddViewWithoutPosition(ViewGroup snackBarViewGroup) {
-        return snackBarViewGroup instanceof FrameLayout || snackBarViewGroup instanceof AdapterView ||
-                snackBarViewGroup instanceof RelativeLayout;
+    /**
+     * Starts tracking a {@link TopSnackbar} that is about to be put into the queue.
+     */
+    private void admit(TopSnackbar snackbar, long retainedBytes) {
+        // Shown again while its view is still animated out, which is cut short.
+        finishLeaving(snackbar);
+        final int timeToLive = snackbar.getSnackBarConfiguration().timeToLiveInMilliseconds;
+        if (SnackBarConfiguration.TIME_TO_LIVE_INFINITE != timeToLive) {
+            snackbar.setExpiryTime(mScheduler.uptimeMillis() + timeToLive);
+            snackbar.setInExpiryIndex(true);
+            mExpiryIndex.add(snackbar);
+        } else {
+            snackbar.setExpiryTime(0);
+        }
+        snackbar.setRetainedBytes(retainedBytes);
+        mRetainedBytes += retainedBytes;
+        snackbar.setState(State.QUEUED);
     }
 
-    @TargetApi(19)
-    private void handleTranslucentActionBar(ViewGroup.MarginLayoutParams params, Activity activity) {
-        // Translucent status is only available as of Android 4.4 Kit Kat.
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
-            final int flags = activity.getWindow().getAttributes().flags;
-            final int translucentStatusFlag = WindowManager.LayoutParams.FLAG_TRANSLUCENT_STATUS;
-            if ((flags & translucentStatusFlag) == translucentStatusFlag) {
-                setActionBarMargin(params, activity);
+    /**
+     * Folds the {@link TopSnackbar}s waiting to be displayed into summaries once their number
+     * passes the collapse threshold of the {@link SnackbarQueueConfiguration}. Snackbars are
+     * grouped by activity and, if configured, by category; each group of two or more is replaced
+     * by the summary its {@link SnackbarAggregator} builds, at the position of its first member.
+     * The folded snackbars are released without their views ever being built.
+     */
+    private void collapseBacklog() {
+        final SnackbarQueueConfiguration configuration = mQueueConfiguration;
+        if (null == configuration.aggregator
+                || SnackbarQueueConfiguration.COLLAPSE_THRESHOLD_DISABLED == configuration.collapseThreshold) {
+            return;
+        }
+        // Only the head can be on its way to the screen, all others are waiting.
+        final TopSnackbar head = mSnackbarQueue.peek();
+        final int backlog = mSnackbarQueue.size() - (null != head && isOnItsWayToScreen(head) ? 1 : 0);
+        if (backlog <= configuration.collapseThreshold) {
+            return;
+        }
+        final boolean isByCategory = SnackbarQueueConfiguration.COLLAPSE_BY_CATEGORY == configuration.collapsePolicy;
+        final List<List<TopSnackbar>> groups = new ArrayList<List<TopSnackbar>>();
+        for (TopSnackbar queued : mSnackbarQueue) {
+            if (State.QUEUED != queued.getState() || queued.isAwaitingHost() || null == queued.getActivity()
+                    || null == queued.getText()) {
+                continue;
+            }
+            List<TopSnackbar> group = null;
+            for (List<TopSnackbar> candidate : groups) {
+                final TopSnackbar first = candidate.get(0);
+                if (first.getActivity() == queued.getActivity()
+                        && (!isByCategory || isSameCategory(first, queued))) {
+                    group = candidate;
+                    break;
+                }
+            }
+            if (null == group) {
+                group = new ArrayList<TopSnackbar>();
+                groups.add(group);
             }
+            group.add(queued);
+        }
+
+        for (List<TopSnackbar> group : groups) {
+            foldGroup(configuration, group, isByCategory);
         }
     }
 
-    @TargetApi(11)
-    private void handleActionBarOverlay(ViewGroup.MarginLayoutParams params, Activity activity) {
-        // ActionBar overlay is only available as of Android 3.0 Honeycomb.
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
-            final boolean flags = activity.getWindow().hasFeature(Window.FEATURE_ACTION_BAR_OVERLAY);
-            //  RankFragment fragment = activity.getFragmentManager().getFragment()
-            if (flags) {
-                setActionBarMargin(params, activity);
+    /**
+     * Replaces a group of queued {@link TopSnackbar}s with the summary built by the aggregator, at
+     * the position of its first member. The summary has to make room for itself like any incoming
+     * snackbar, counting the members it replaces as gone. If it does not fit, the members stay.
+     */
+    private void foldGroup(SnackbarQueueConfiguration configuration, List<TopSnackbar> group, boolean isByCategory) {
+        // Members may have been dropped to make room for an earlier summary.
+        final Iterator<TopSnackbar> members = group.iterator();
+        while (members.hasNext()) {
+            if (State.QUEUED != members.next().getState()) {
+                members.remove();
+            }
+        }
+        if (group.size() < 2) {
+            return;
+        }
+        final TopSnackbar first = group.get(0);
+        final List<CharSequence> texts = new ArrayList<CharSequence>(group.size());
+        int count = 0;
+        for (TopSnackbar member : group) {
+            texts.add(member.getText());
+            count += member.getFoldedCount();
+        }
+        final TopSnackbar summary = configuration.aggregator.aggregate(first.getActivity(),
+                isByCategory ? first.getCategory() : null, count, texts);
+        if (null == summary || summary.isInManager()) {
+            return;
+        }
+        summary.setFoldedCount(count);
+        if (isByCategory && null == summary.getCategory()) {
+            summary.setCategory(first.getCategory());
+        }
+        final long summaryBytes = RetainedSizeEstimator.estimate(summary);
+        if (!makeRoomFor(summary, summaryBytes, group)) {
+            mOverflowCount++;
+            onTopSnackbarReleased(summary);
+            return;
+        }
+        final List<TopSnackbar> reordered = new ArrayList<TopSnackbar>(mSnackbarQueue.size());
+        for (TopSnackbar queued : mSnackbarQueue) {
+            if (queued == first) {
+                reordered.add(summary);
+            } else if (!group.contains(queued)) {
+                reordered.add(queued);
             }
         }
+        admit(summary, summaryBytes);
+        mSnackbarQueue.clear();
+        mSnackbarQueue.addAll(reordered);
+        mCollapsedCount += group.size();
+        for (TopSnackbar member : group) {
+            dropQueuedTopSnackbar(member);
+        }
     }
 
-    private void setActionBarMargin(ViewGroup.MarginLayoutParams params, Activity activity) {
-        final int actionBarContainerId = Resources.getSystem().getIdentifier("action_bar_container", "id", "android");
-        final View actionBarContainer = activity.findViewById(actionBarContainerId);
-        // The action bar is present: the app is using a Holo theme.
-
-        if (null != actionBarContainer) {
-            params.topMargin = actionBarContainer.getBottom();
-        }
+    private static boolean isSameCategory(TopSnackbar lhs, TopSnackbar rhs) {
+        return null == lhs.getCategory() ? null == rhs.getCategory() : lhs.getCategory().equals(rhs.getCategory());
     }
 
     /**
-     * Removes the {@link TopSnackbar}'s view after it's display
-     * durationInMilliseconds.
+     * Drops queued {@link TopSnackbar}s according to the overflow policy until the incoming one
+     * fits into the capacity and the retained bytes ceiling. The victims are selected first and
+     * only dropped once it is certain that the incoming one then fits, so a snackbar that is
+     * rejected anyway never costs the queue any of its members.
      *
-     * @param TopSnackbar The {@link TopSnackbar} added to a {@link ViewGroup} and should be
-     *                    removed.
+     * @param leaving Queued snackbars about to leave with the insertion, e.g. the members of a
+     *                summary. They are counted as gone and never selected as victims.
+     * @return <code>false</code> if the incoming snackbar should be rejected instead.
      */
-    protected void removeTopSnackbar(TopSnackbar snackbar) {
-        // If the TopSnackbar hasn't been displayed yet a `TopSnackbar.hide()` will fail to hide
-        // it since the DISPLAY message might still be in the queue. Remove all messages
-        // for this snavbar.
-        removeAllMessagesForTopSnackbar(snackbar);
-
-        View snackbarView = snackbar.getView();
-
-        ViewGroup snackbarParentView = (ViewGroup) snackbarView.getParent();
-
-        if (null != snackbarParentView) {
-            snackbarView.startAnimation(snackbar.getOutAnimation());
-
-            // Remove the Snackbar from the queue.
-            TopSnackbar removed = mSnackbarQueue.poll();
-
-            // Remove the Snackbar from the view's parent.
-            snackbarParentView.removeView(snackbarView);
-            if (null != removed) {
-                removed.detachActivity();
-                removed.detachFragment();
-                removed.detachViewGroup();
-                if (null != removed.getLifecycleCallback()) {
-                    removed.getLifecycleCallback().onRemoved();
-                }
-                removed.detachLifecycleCallback();
+    private boolean makeRoomFor(TopSnackbar incoming, long incomingBytes, List<TopSnackbar> leaving) {
+        final SnackbarQueueConfiguration configuration = mQueueConfiguration;
+        final boolean isBytesBounded =
+                SnackbarQueueConfiguration.RETAINED_BYTES_UNBOUNDED != configuration.maxRetainedBytes;
+        if (isBytesBounded && incomingBytes > configuration.maxRetainedBytes) {
+            return false;
+        }
+        int size = mSnackbarQueue.size() - leaving.size();
+        long retainedBytes = mRetainedBytes;
+        for (int i = 0; i < leaving.size(); i++) {
+            retainedBytes -= leaving.get(i).getRetainedBytes();
+        }
+        List<TopSnackbar> victims = null;
+        while (size >= configuration.capacity
+                || (isBytesBounded && retainedBytes + incomingBytes > configuration.maxRetainedBytes)) {
+            final TopSnackbar victim = selectOverflowVictim(incoming, leaving, victims);
+            if (null == victim) {
+                return false;
             }
-
-            // Send a message to display the next Snackbar but delay it by the out
-            // animation duration to make sure it finishes
-            sendMessageDelayed(snackbar, Messages.DISPLAY_TOPSNACKBAR, snackbar.getOutAnimation().getDuration());
+            if (null == victims) {
+                victims = new ArrayList<TopSnackbar>();
+            }
+            victims.add(victim);
+            size--;
+            retainedBytes -= victim.getRetainedBytes();
         }
+        if (null != victims) {
+            for (TopSnackbar victim : victims) {
+                mSnackbarQueue.remove(victim);
+                mOverflowCount++;
+                dropQueuedTopSnackbar(victim);
+            }
+        }
+        return true;
     }
 
     /**
-     * Removes a {@link TopSnackbar} immediately, even when it's currently being
-     * displayed.
-     *
-     * @param topSnackbar The {@link TopSnackbar} that should be removed.
+     * @param leaving The snackbars leaving anyway, not to be selected.
+     * @param victims The victims selected so far, or <code>null</code>.
+     * @return The queued {@link TopSnackbar} the overflow policy drops to make room for the
+     * incoming one, or <code>null</code> if the incoming one should be rejected.
      */
-    void removeTopSnackbarImmediately(TopSnackbar topSnackbar) {
-        // if Snackbar has already been displayed then it may not be in the queue (because it was popped).
-        // This ensures the displayed Snackbar is removed from its parent immediately, whether another instance
-        // of it exists in the queue or not.
-        // Note: topSnackbar.isShowing() is false here even if it really is showing, as SnackbarView object in
-        // Snackbar seems to be out of sync with reality!
-        if (null != topSnackbar.getActivity() && null != topSnackbar.getView() && null != topSnackbar.getView().getParent()) {
-            ((ViewGroup) topSnackbar.getView().getParent()).removeView(topSnackbar.getView());
-
-            // remove any messages pending for the topSnackbar
-            removeAllMessagesForTopSnackbar(topSnackbar);
-        }
-        // remove any matching Snackbars from queue
-        final Iterator<TopSnackbar> SnackbarIterator = mSnackbarQueue.iterator();
-        while (SnackbarIterator.hasNext()) {
-            final TopSnackbar c = SnackbarIterator.next();
-            if (c.equals(topSnackbar) && (null != c.getActivity())) {
-                // remove the topSnackbar from the content view
-                removeTopSnackbarFromViewParent(topSnackbar);
+    private TopSnackbar selectOverflowVictim(TopSnackbar incoming, List<TopSnackbar> leaving, List<TopSnackbar> victims) {
+        TopSnackbar victim = null;
+        switch (mQueueConfiguration.overflowPolicy) {
+            case SnackbarQueueConfiguration.OVERFLOW_EVICT_LOWEST_PRIORITY: {
+                int lowestPriority = incoming.getSnackBarConfiguration().priority + 1;
+                for (TopSnackbar queued : mSnackbarQueue) {
+                    if (isEvictable(queued, leaving, victims) && queued.getSnackBarConfiguration().priority < lowestPriority) {
+                        victim = queued;
+                        lowestPriority = queued.getSnackBarConfiguration().priority;
+                    }
+                }
+                break;
+            }
 
-                // remove any messages pending for the topSnackbar
-                removeAllMessagesForTopSnackbar(c);
+            case SnackbarQueueConfiguration.OVERFLOW_COLLAPSE: {
+                for (TopSnackbar queued : mSnackbarQueue) {
+                    if (isEvictable(queued, leaving, victims) && queued.hasSameContentAs(incoming)) {
+                        return queued;
+                    }
+                }
+                victim = findOldestEvictable(leaving, victims);
+                break;
+            }
 
-                // remove the topSnackbar from the queue
-                SnackbarIterator.remove();
+            case SnackbarQueueConfiguration.OVERFLOW_EVICT_OLDEST: {
+                victim = findOldestEvictable(leaving, victims);
+                break;
+            }
 
-                // we have found our topSnackbar so just break
+            default: {
                 break;
             }
         }
+        return victim;
+    }
+
+    private TopSnackbar findOldestEvictable(List<TopSnackbar> leaving, List<TopSnackbar> victims) {
+        for (TopSnackbar queued : mSnackbarQueue) {
+            if (isEvictable(queued, leaving, victims)) {
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    private boolean isEvictable(TopSnackbar queued, List<TopSnackbar> leaving, List<TopSnackbar> victims) {
+        return !isOnItsWayToScreen(queued) && !leaving.contains(queued) && (null == victims || !victims.contains(queued));
     }
 
     /**
-     * Removes all {@link TopSnackbar}s from the queue.
+     * @return <code>true</code> if the {@link TopSnackbar} is displayed or about to be.
      */
-    void clearTopSnackbarQueue() {
-        removeAllMessages();
-
-        // remove any views that may already have been added to the activity's
-        // content view
-        for (TopSnackbar Snackbar : mSnackbarQueue) {
-            removeTopSnackbarFromViewParent(Snackbar);
-        }
-        mSnackbarQueue.clear();
+    private boolean isOnItsWayToScreen(TopSnackbar snackbar) {
+        return snackbar.getState() >= State.PREPARING && snackbar.getState() <= State.HIDING;
     }
 
     /**
-     * Removes all {@link TopSnackbar}s for the provided activity. This will remove
-     * Snackbar from {@link Activity}s content view immediately.
+     * Drops all queued {@link TopSnackbar}s whose time to live has passed before they have been
+     * displayed. Only the expired entries at the head of the expiry index are looked at.
+     */
+    private void evictExpiredTopSnackbars() {
+        if (mExpiryIndex.isEmpty()) {
+            return;
+        }
+        final long now = mScheduler.uptimeMillis();
+        TopSnackbar expired = mExpiryIndex.peek();
+        while (null != expired && expired.getExpiryTime() <= now) {
+            mExpiryIndex.poll();
+            expired.setInExpiryIndex(false);
+            // A snackbar that is already on its way to the screen plays out normally.
+            if (!isOnItsWayToScreen(expired) && mSnackbarQueue.remove(expired)) {
+                mExpiredCount++;
+                final ExpiryCallback expiryCallback = expired.getExpiryCallback();
+                dropQueuedTopSnackbar(expired);
+                if (null != expiryCallback) {
+                    final Object section = SnackbarTrace.beginSection(SnackbarTrace.CALLBACK, expired);
+                    expiryCallback.onExpired();
+                    SnackbarTrace.endSection(section);
+                }
+            }
+            expired = mExpiryIndex.peek();
+        }
+    }
+
+    /**
+     * Releases a {@link TopSnackbar} that has been taken off the queue before it was displayed.
+     */
+    private void dropQueuedTopSnackbar(TopSnackbar snackbar) {
+        removeAllMessagesForTopSnackbar(snackbar);
+        snackbar.detachActivity();
+        snackbar.detachFragment();
+        snackbar.detachViewGroup();
+        onTopSnackbarReleased(snackbar);
+    }
+
+    /**
+     * Replaces the limits applied to the queue. They are enforced from the next insertion on.
+     */
+    public void setQueueConfiguration(SnackbarQueueConfiguration queueConfiguration) {
+        mQueueConfiguration = queueConfiguration;
+    }
+
+    /**
+     * @return The number of {@link TopSnackbar}s dropped or rejected because the queue was full.
+     */
+    long getOverflowCount() {
+        return mOverflowCount;
+    }
+
+    /**
+     * @return The number of {@link TopSnackbar}s folded into summaries.
+     */
+    long getCollapsedCount() {
+        return mCollapsedCount;
+    }
+
+    /**
+     * @return The number of {@link TopSnackbar}s dropped because their time to live passed.
+     */
+    long getExpiredCount() {
+        return mExpiredCount;
+    }
+
+    /**
+     * Starts displaying the {@link TopSnackbar} at the head of the queue, if it is still
+     * {@link State#QUEUED}. Called whenever the head may have changed: after an insertion and
+     * after the displayed snackbar has left.
+     */
+    private void displayTopSnackbar() {
+        evictExpiredTopSnackbars();
+        TopSnackbar currentSnackbar = mSnackbarQueue.peek();
+        // Snackbars whose activity is gone are polled off the queue.
+        while (null != currentSnackbar && null == currentSnackbar.getActivity()) {
+            mSnackbarQueue.poll();
+            onTopSnackbarReleased(currentSnackbar);
+            currentSnackbar = mSnackbarQueue.peek();
+        }
+        // A snackbar past QUEUED is already on its way, its events drive the queue from here.
+        // A snackbar awaiting its new activity is displayed once that has been created.
+        if (null == currentSnackbar || State.QUEUED != currentSnackbar.getState() || currentSnackbar.isAwaitingHost()) {
+            return;
+        }
+        currentSnackbar.setState(State.PREPARING);
+        // Start observing scrolls before the attach is due, so a running scroll is noticed.
+        getBusySignal(currentSnackbar);
+        scheduleAddTopSnackbarToView(currentSnackbar);
+    }
+
+    /**
+     * Sends the message that builds and attaches the view of a {@link TopSnackbar}. If its
+     * {@link SnackBarConfiguration} allows it, the work is deferred until the manager's thread is
+     * idle, but at most for the configured deferral. High priority snackbars are never deferred.
+     */
+    private void scheduleAddTopSnackbarToView(TopSnackbar snackbar) {
+        final SnackBarConfiguration configuration = snackbar.getSnackBarConfiguration();
+        if (configuration.maxIdleDeferralInMilliseconds <= 0
+                || configuration.priority >= SnackBarConfiguration.PRIORITY_HIGH
+                || snackbar.isPrerendered() || !isOnLooper()) {
+            sendMessage(snackbar, Messages.ADD_TOPSNACKBAR_TO_VIEW);
+            return;
+        }
+        // The delayed message bounds the deferral, the idle handler usually runs it earlier.
+        sendMessageDelayed(snackbar, Messages.ADD_TOPSNACKBAR_TO_VIEW, configuration.maxIdleDeferralInMilliseconds);
+        if (null == mIdleDeferredSnackbar) {
+            Looper.myQueue().addIdleHandler(mIdleAddHandler);
+        }
+        mIdleDeferredSnackbar = snackbar;
+    }
+
+    /**
+     * @return <code>true</code> if the manager runs on the calling thread's {@link Looper}, so
+     * idle deferral and frame alignment can be used.
+     */
+    private boolean isOnLooper() {
+        return mScheduler instanceof LooperScheduler && mScheduler.isCurrentThread();
+    }
+
+    /**
+     * Schedules a message for a {@link TopSnackbar} on the {@link SnackbarScheduler}.
+     *
+     * @param snackbar  The {@link TopSnackbar} that should be sent.
+     * @param messageId The message id.
+     */
+    private void sendMessage(TopSnackbar snackbar, final int messageId) {
+        mScheduler.schedule(messageId, snackbar, 0, 0);
+    }
+
+    /**
+     * Schedules a delayed message for a {@link TopSnackbar} on the {@link SnackbarScheduler}.
+     *
+     * @param snackbar  The {@link TopSnackbar} that should be sent.
+     * @param messageId The message id.
+     * @param delay     The delay in milliseconds.
+     */
+    private void sendMessageDelayed(TopSnackbar snackbar, final int messageId, final long delay) {
+        mScheduler.schedule(messageId, snackbar, 0, delay);
+    }
+
+    /**
+     * Handles a message handed back by the {@link SnackbarScheduler} once it is due.
+     */
+    @SuppressWarnings("unchecked")
+    private void handleDueWork(int what, Object obj, int arg1, long dueTime) {
+        if (Messages.ENQUEUE_BATCH == what) {
+            enqueueBatch((List<TopSnackbar>) obj);
+            return;
+        }
+        if (Messages.DROP_RETAINED_STATE == what) {
+            dropRetainedState((RetainedState) obj);
+            return;
+        }
+        final TopSnackbar snackbar = (TopSnackbar) obj;
+        if (null == snackbar) {
+            return;
+        }
+        switch (what) {
+            case Messages.DISPLAY_TOPSNACKBAR: {
+                finishLeaving(snackbar);
+                displayTopSnackbar();
+                break;
+            }
+
+            case Messages.ADD_TOPSNACKBAR_TO_VIEW:
+            case Messages.REMOVE_TOPSNACKBAR: {
+                if (ARG_HOLD_EXHAUSTED == arg1 || !holdWhileBusy(what, snackbar, 0)) {
+                    runOperation(what, snackbar, dueTime);
+                }
+                break;
+            }
+
+            case Messages.RELEASE_HELD_OPERATIONS: {
+                releaseHeldOperations(null, snackbar);
+                break;
+            }
+
+            case Messages.REATTACH_TOPSNACKBAR: {
+                reattachTopSnackbar(snackbar, arg1);
+                break;
+            }
+
+            case Messages.PRERENDER_TOPSNACKBARS: {
+                prerenderTopSnackbars();
+                break;
+            }
+
+            case Messages.START_IN_ANIMATION: {
+                if (State.ATTACHING == snackbar.getState()) {
+                    startInAnimation(snackbar, snackbar.getView());
+                }
+                break;
+            }
+
+            default: {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Runs an attach or remove operation that is due, or defers it to the start of the next frame
+     * if the {@link TopSnackbar} is frame aligned.
+     *
+     * @param operation    {@link Messages#ADD_TOPSNACKBAR_TO_VIEW} or {@link Messages#REMOVE_TOPSNACKBAR}.
+     * @param snackbar     The {@link TopSnackbar} the operation belongs to.
+     * @param intendedTime The uptime in milliseconds at which the operation was due.
+     */
+    private void runOperation(int operation, TopSnackbar snackbar, long intendedTime) {
+        if (snackbar.getSnackBarConfiguration().isFrameAligned && isOnLooper()) {
+            mFrameAlignedDispatcher.post(operation, snackbar, intendedTime);
+            return;
+        }
+        performOperation(operation, snackbar);
+    }
+
+    /**
+     * @return The {@link SnackbarBusySignal} of the {@link TopSnackbar}'s activity, or
+     * <code>null</code> if the snackbar is not held while scrolling.
+     */
+    private SnackbarBusySignal getBusySignal(TopSnackbar snackbar) {
+        if (snackbar.getSnackBarConfiguration().maxScrollHoldInMilliseconds <= 0 || null == snackbar.getActivity()) {
+            return null;
+        }
+        final SnackbarBusySignal signal = SnackbarBusySignal.obtain(snackbar.getActivity());
+        if (null != signal) {
+            signal.setListener(mBusyListener);
+        }
+        return signal;
+    }
+
+    /**
+     * Holds back an operation if the activity of the {@link TopSnackbar} is scrolling. It is
+     * released once scrolling settles, or after the configured maximum hold.
+     *
+     * @param delay The time the operation still has to wait once released, in milliseconds.
+     * @return <code>true</code> if the operation has been held.
+     */
+    private boolean holdWhileBusy(int operation, TopSnackbar snackbar, long delay) {
+        final SnackbarBusySignal signal = getBusySignal(snackbar);
+        if (null == signal || !signal.isBusy()) {
+            return false;
+        }
+        mHeldOperations.add(obtainHeldOperation(operation, snackbar, signal, delay));
+        if (!mScheduler.isScheduled(Messages.RELEASE_HELD_OPERATIONS, snackbar)) {
+            sendMessageDelayed(snackbar, Messages.RELEASE_HELD_OPERATIONS,
+                    snackbar.getSnackBarConfiguration().maxScrollHoldInMilliseconds);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the display duration of the displayed {@link TopSnackbar} from running down while its
+     * activity scrolls, by holding its pending removal with the remaining time.
+     */
+    private void pauseDismissalTimer(SnackbarBusySignal signal) {
+        final TopSnackbar current = mSnackbarQueue.peek();
+        if (null == current || State.SHOWING != current.getState() || !mScheduler.isScheduled(Messages.REMOVE_TOPSNACKBAR, current)
+                || signal != getBusySignal(current)) {
+            return;
+        }
+        mScheduler.cancel(Messages.REMOVE_TOPSNACKBAR, current);
+        final long remaining = Math.max(0, current.getDismissalTime() - mScheduler.uptimeMillis());
+        holdWhileBusy(Messages.REMOVE_TOPSNACKBAR, current, remaining);
+    }
+
+    /**
+     * Restarts the display duration of a displayed {@link TopSnackbar}, e.g. after its content has
+     * been updated. A removal held while scrolling is held with the full duration instead.
+     */
+    void resetDismissalTimer(TopSnackbar snackbar) {
+        final int duration = snackbar.getSnackBarConfiguration().durationInMilliseconds;
+        if (State.SHOWING != snackbar.getState() || SnackBarConfiguration.DURATION_INFINITE == duration) {
+            return;
+        }
+        for (int i = 0; i < mHeldOperations.size(); i++) {
+            final HeldOperation held = mHeldOperations.get(i);
+            if (Messages.REMOVE_TOPSNACKBAR == held.operation && snackbar == held.snackbar) {
+                held.delay = duration;
+                return;
+            }
+        }
+        if (mScheduler.isScheduled(Messages.REMOVE_TOPSNACKBAR, snackbar)) {
+            mScheduler.cancel(Messages.REMOVE_TOPSNACKBAR, snackbar);
+            snackbar.setDismissalTime(mScheduler.uptimeMillis() + duration);
+            sendMessageDelayed(snackbar, Messages.REMOVE_TOPSNACKBAR, duration);
+        }
+    }
+
+    /**
+     * Releases the held operations of a {@link SnackbarBusySignal} that settled, or of a
+     * {@link TopSnackbar} whose maximum hold has passed. Operations released because of the
+     * maximum hold are not held again.
+     */
+    private void releaseHeldOperations(SnackbarBusySignal signal, TopSnackbar snackbar) {
+        final List<HeldOperation> released = mReleasedHeldOperations;
+        final int start = released.size();
+        for (int i = 0; i < mHeldOperations.size(); ) {
+            final HeldOperation held = mHeldOperations.get(i);
+            if ((null == signal || signal == held.signal) && (null == snackbar || snackbar == held.snackbar)) {
+                mHeldOperations.remove(i);
+                released.add(held);
+            } else {
+                i++;
+            }
+        }
+        final long now = mScheduler.uptimeMillis();
+        for (int i = start; i < released.size(); i++) {
+            final HeldOperation held = released.get(i);
+            final int operation = held.operation;
+            final TopSnackbar heldSnackbar = held.snackbar;
+            final long delay = held.delay;
+            recycleHeldOperation(held);
+            mScheduler.cancel(Messages.RELEASE_HELD_OPERATIONS, heldSnackbar);
+            if (delay > 0) {
+                heldSnackbar.setDismissalTime(now + delay);
+                mScheduler.schedule(operation, heldSnackbar, null == signal ? ARG_HOLD_EXHAUSTED : 0, delay);
+            } else {
+                runOperation(operation, heldSnackbar, now);
+            }
+        }
+        for (int i = released.size() - 1; i >= start; i--) {
+            released.remove(i);
+        }
+    }
+
+    private HeldOperation obtainHeldOperation(int operation, TopSnackbar snackbar, SnackbarBusySignal signal, long delay) {
+        final int last = mFreeHeldOperations.size() - 1;
+        final HeldOperation held = last >= 0 ? mFreeHeldOperations.remove(last) : new HeldOperation();
+        held.operation = operation;
+        held.snackbar = snackbar;
+        held.signal = signal;
+        held.delay = delay;
+        return held;
+    }
+
+    private void recycleHeldOperation(HeldOperation held) {
+        held.snackbar = null;
+        held.signal = null;
+        mFreeHeldOperations.add(held);
+    }
+
+    private boolean isHeld(int operation, TopSnackbar snackbar) {
+        for (int i = 0; i < mHeldOperations.size(); i++) {
+            final HeldOperation held = mHeldOperations.get(i);
+            if (operation == held.operation && snackbar == held.snackbar) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void performOperation(int operation, TopSnackbar snackbar) {
+        if (Messages.ADD_TOPSNACKBAR_TO_VIEW == operation) {
+            addTopSnackbarToView(snackbar);
+        } else if (Messages.REMOVE_TOPSNACKBAR == operation) {
+            removeTopSnackbar(snackbar);
+        }
+    }
+
+    /**
+     * Sets the listener notified about the lateness of frame aligned operations.
+     */
+    void setFrameLatenessListener(FrameLatenessListener frameLatenessListener) {
+        mFrameLatenessListener = frameLatenessListener;
+    }
+
+    /**
+     * Adds a {@link TopSnackbar} to the {@link TopSnackbar} of it's {@link Activity}.
+     *
+     * @param topSnackbar The {@link TopSnackbar} that should be added.
+     */
+    private void addTopSnackbarToView(final TopSnackbar topSnackbar) {
+        if (State.PREPARING != topSnackbar.getState()) {
+            return;
+        }
+
+        final View topSnackbarView = topSnackbar.getView();
+
+        final Object section = SnackbarTrace.beginSection(SnackbarTrace.ATTACH, topSnackbar);
+        if (null == topSnackbarView.getParent() && !attachTopSnackbarView(topSnackbar, topSnackbarView)) {
+            SnackbarTrace.endSection(section);
+            // The activity is finishing, move on to the next snackbar.
+            mSnackbarQueue.remove(topSnackbar);
+            dropQueuedTopSnackbar(topSnackbar);
+            displayTopSnackbar();
+            return;
+        }
+        topSnackbar.setState(State.ATTACHING);
+
+        if (topSnackbarView.getParent() instanceof SnackbarHostLayout) {
+            final SnackbarHostLayout hostLayout = (SnackbarHostLayout) topSnackbarView.getParent();
+            if (hostLayout.getWidth() > 0) {
+                // The host container lays out its children locally, no need to wait for a traversal.
+                hostLayout.layoutChildrenNow();
+                SnackbarTrace.endSection(section);
+                startInAnimation(topSnackbar, topSnackbarView);
+                return;
+            }
+        }
+        SnackbarTrace.endSection(section);
+
+        topSnackbarView.requestLayout(); // This is needed so the animation can use the measured with/height
+        if (!(mScheduler instanceof LooperScheduler)) {
+            // The layout step is driven by the manager's clock as well, e.g. a VirtualTimeScheduler
+            // in tests, instead of waiting for a traversal of the view tree that may never run.
+            sendMessage(topSnackbar, Messages.START_IN_ANIMATION);
+            return;
+        }
+        ViewTreeObserver observer = topSnackbarView.getViewTreeObserver();
+        if (null != observer) {
+            observer.addOnGlobalLayoutListener(obtainLayoutListener(topSnackbar, topSnackbarView));
+        }
+    }
+
+    private LayoutListener obtainLayoutListener(TopSnackbar snackbar, View snackbarView) {
+        final int last = mFreeLayoutListeners.size() - 1;
+        final LayoutListener listener = last >= 0 ? mFreeLayoutListeners.remove(last) : new LayoutListener();
+        listener.snackbar = snackbar;
+        listener.snackbarView = snackbarView;
+        return listener;
+    }
+
+    /**
+     * Attaches the view of a {@link TopSnackbar} as configured by its display mode.
+     *
+     * @return <code>false</code> if the view could not be added because the activity is finishing.
+     */
+    private boolean attachTopSnackbarView(final TopSnackbar topSnackbar, final View topSnackbarView) {
+        final int displayMode = topSnackbar.getSnackBarConfiguration().displayMode;
+        if (SnackBarConfiguration.DISPLAY_MODE_WINDOW == displayMode
+                && addTopSnackbarToWindow(topSnackbar, topSnackbarView)) {
+            return true;
+        }
+        if (SnackBarConfiguration.DISPLAY_MODE_HOST_LAYOUT == displayMode
+                && addTopSnackbarToHostLayout(topSnackbar, topSnackbarView)) {
+            return true;
+        }
+        return addTopSnackbarToViewGroup(topSnackbar, topSnackbarView);
+    }
+
+    /**
+     * Starts the in animation of a {@link TopSnackbar} whose view has been laid out and
+     * schedules its removal.
+     */
+    private void startInAnimation(final TopSnackbar topSnackbar, final View topSnackbarView) {
+        // The snackbar may have been hidden while waiting for the layout.
+        if (State.ATTACHING != topSnackbar.getState()) {
+            return;
+        }
+        topSnackbar.setState(State.SHOWING);
+        dispatchOnDisplayed(topSnackbar);
+        if (topSnackbar.getInAnimation() != null) {
+            topSnackbarView.startAnimation(topSnackbar.getInAnimation());
+            SnackbarTrace.beginAsyncSection(SnackbarTrace.VISIBLE, topSnackbar);
+            SnackbarTrace.traceAnimation(SnackbarTrace.IN_ANIMATION, topSnackbar,
+                    topSnackbar.getInAnimation().getDuration());
+            announceForAccessibilityCompat(topSnackbar.getActivity(), topSnackbar.getText());
+            if (SnackBarConfiguration.DURATION_INFINITE != topSnackbar.getSnackBarConfiguration().durationInMilliseconds) {
+                final long delay = topSnackbar.getSnackBarConfiguration().durationInMilliseconds
+                        + topSnackbar.getInAnimation().getDuration();
+                topSnackbar.setDismissalTime(mScheduler.uptimeMillis() + delay);
+                sendMessageDelayed(topSnackbar, Messages.REMOVE_TOPSNACKBAR, delay);
+                final SnackbarBusySignal signal = getBusySignal(topSnackbar);
+                if (null != signal && signal.isBusy()) {
+                    pauseDismissalTimer(signal);
+                }
+            }
+            schedulePrerender(topSnackbar, topSnackbar.getInAnimation().getDuration());
+        }
+    }
+
+    /**
+     * Schedules prerendering the next queued {@link TopSnackbar}s once the displayed one has
+     * finished its transition, so the work does not compete with its animation.
+     */
+    private void schedulePrerender(TopSnackbar displayed, long delay) {
+        if (mQueueConfiguration.prerenderDepth > 0) {
+            sendMessageDelayed(displayed, Messages.PRERENDER_TOPSNACKBARS, delay);
+        }
+    }
+
+    /**
+     * Schedules prerendering for snackbars enqueued while one is displayed.
+     */
+    private void prerenderBehindDisplayed() {
+        final TopSnackbar head = mSnackbarQueue.peek();
+        if (null != head && State.SHOWING == head.getState()
+                && !mScheduler.isScheduled(Messages.PRERENDER_TOPSNACKBARS, head)) {
+            schedulePrerender(head, 0);
+        }
+    }
+
+    /**
+     * Builds, measures and loads the animations of the next queued {@link TopSnackbar}s, up to the
+     * configured depth. Stops before the retained bytes ceiling would be exceeded. Snackbars that
+     * have been pushed back behind the depth, e.g. by one of a higher priority, drop their views
+     * again, so the queue holds no more views than the configured depth however long it is.
+     */
+    private void prerenderTopSnackbars() {
+        // Snackbars that have expired meanwhile are not worth building.
+        evictExpiredTopSnackbars();
+        final SnackbarQueueConfiguration configuration = mQueueConfiguration;
+        int prerendered = 0;
+        boolean isOverBudget = false;
+        // Walked by index over a kept copy, a deque has no indexed access and its iterator is new.
+        final int size = mSnackbarQueue.size();
+        mQueueSnapshot = mSnackbarQueue.toArray(mQueueSnapshot);
+        for (int i = 0; i < size; i++) {
+            final TopSnackbar queued = mQueueSnapshot[i];
+            mQueueSnapshot[i] = null;
+            if (State.QUEUED != queued.getState() || queued.isAwaitingHost() || null == queued.getActivity()) {
+                continue;
+            }
+            if (isOverBudget || prerendered >= configuration.prerenderDepth) {
+                if (queued.isPrerendered()) {
+                    discardPrerender(queued);
+                }
+                continue;
+            }
+            if (!queued.isPrerendered()) {
+                final Object section = SnackbarTrace.beginSection(SnackbarTrace.PRERENDER, queued);
+                queued.prerender();
+                SnackbarTrace.endSection(section);
+                final long retainedBytes = RetainedSizeEstimator.estimate(queued);
+                final long total = mRetainedBytes - queued.getRetainedBytes() + retainedBytes;
+                if (SnackbarQueueConfiguration.RETAINED_BYTES_UNBOUNDED != configuration.maxRetainedBytes
+                        && total > configuration.maxRetainedBytes) {
+                    queued.discardPrerender();
+                    isOverBudget = true;
+                    continue;
+                }
+                mRetainedBytes = total;
+                queued.setRetainedBytes(retainedBytes);
+            }
+            prerendered++;
+        }
+    }
+
+    private void discardPrerender(TopSnackbar snackbar) {
+        snackbar.discardPrerender();
+        updateRetainedBytes(snackbar);
+    }
+
+    /**
+     * Charges what a {@link TopSnackbar} retains now instead of what it has been charged so far.
+     */
+    private void updateRetainedBytes(TopSnackbar snackbar) {
+        final long retainedBytes = RetainedSizeEstimator.estimate(snackbar);
+        mRetainedBytes += retainedBytes - snackbar.getRetainedBytes();
+        snackbar.setRetainedBytes(retainedBytes);
+    }
+
+    /**
+     * Adds the view of a {@link TopSnackbar} to the supplied {@link ViewGroup}, its fragment view
+     * or the content view of its {@link Activity}.
+     *
+     * @return <code>false</code> if the view could not be added because the activity is finishing.
+     */
+    private boolean addTopSnackbarToViewGroup(final TopSnackbar topSnackbar, final View topSnackbarView) {
+        final SnackbarHostAdapterRegistry registry = SnackbarHostAdapterRegistry.getInstance();
+        // display topsnackbar in ViewGroup if it has been supplied
+        final ViewGroup snackbarViewGroup = topSnackbar.getViewGroup();
+        if (null != snackbarViewGroup && addTopSnackbarToHost(registry, snackbarViewGroup, topSnackbarView, 0)) {
+            return true;
+        }
+        final Activity activity = topSnackbar.getActivity();
+        if (null == activity || activity.isFinishing()) {
+            return false;
+        }
+        final ViewGroup content = (ViewGroup) activity.findViewById(android.R.id.content);
+        final int topOffset;
+        if (null != snackbarViewGroup) {
+            // The supplied ViewGroup cannot host the view, it is placed at its top in the content view.
+            topOffset = getTopInContent(snackbarViewGroup, content) + getInsetOffset(activity, snackbarViewGroup);
+        } else {
+            topOffset = getTopOffset(topSnackbar, activity, getAnchorView(topSnackbar, activity));
+        }
+        final ViewGroup fragmentView = null != snackbarViewGroup ? null : (ViewGroup) topSnackbar.getFragmentView();
+        if (null != fragmentView && addTopSnackbarToHost(registry, fragmentView, topSnackbarView, topOffset)) {
+            return true;
+        }
+        // Hosts that cannot place the view at their top leave it to the content view.
+        if (!addTopSnackbarToHost(registry, content, topSnackbarView, topOffset)) {
+            final ViewGroup.LayoutParams snackbarParams = topSnackbarView.getLayoutParams();
+            final FrameLayout.LayoutParams params;
+            if (snackbarParams instanceof FrameLayout.LayoutParams) {
+                // A pooled view keeps its layout params from one attach to the next.
+                params = (FrameLayout.LayoutParams) snackbarParams;
+                params.gravity = Gravity.TOP;
+            } else {
+                params = new FrameLayout.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.TOP);
+            }
+            params.topMargin = topOffset;
+            content.addView(topSnackbarView, params);
+        }
+        return true;
+    }
+
+    /**
+     * @return The distance from the top of the content view to the top of the anchor, in pixels.
+     */
+    private int getTopInContent(View anchor, View content) {
+        anchor.getLocationInWindow(mOffset);
+        final int anchorTop = mOffset[1];
+        content.getLocationInWindow(mOffset);
+        return Math.max(0, anchorTop - mOffset[1]);
+    }
+
+    /**
+     * Adds the view through the {@link SnackbarHostAdapter} of the host's class.
+     *
+     * @return <code>false</code> if there is no adapter for the host or it could not place the view.
+     */
+    private static boolean addTopSnackbarToHost(SnackbarHostAdapterRegistry registry, ViewGroup host,
+                                                View topSnackbarView, int topMargin) {
+        final SnackbarHostAdapter adapter = registry.getAdapter(host);
+        return null != adapter && adapter.addView(host, topSnackbarView, topMargin);
+    }
+
+    /**
+     * Adds the view of a {@link TopSnackbar} to its own sub-window on top of its {@link Activity},
+     * positioned where {@link #addTopSnackbarToViewGroup(TopSnackbar, View)} would have placed it.
+     *
+     * @return <code>false</code> if the activity window is not available and the view should be
+     * added to the view hierarchy instead.
+     */
+    private boolean addTopSnackbarToWindow(final TopSnackbar topSnackbar, final View topSnackbarView) {
+        final Activity activity = topSnackbar.getActivity();
+        if (null == activity || activity.isFinishing()) {
+            return false;
+        }
+        final View anchor = getAnchorView(topSnackbar, activity);
+        return SnackbarWindowHost.addView(activity, anchor, topSnackbarView, getTopOffset(topSnackbar, activity, anchor));
+    }
+
+    /**
+     * Adds the view of a {@link TopSnackbar} to the persistent {@link SnackbarHostLayout} of its
+     * {@link Activity}, positioned where {@link #addTopSnackbarToViewGroup(TopSnackbar, View)}
+     * would have placed it.
+     *
+     * @return <code>false</code> if the host container is not available and the view should be
+     * added to the view hierarchy instead.
+     */
+    private boolean addTopSnackbarToHostLayout(final TopSnackbar topSnackbar, final View topSnackbarView) {
+        final Activity activity = topSnackbar.getActivity();
+        if (null == activity || activity.isFinishing()) {
+            return false;
+        }
+        final SnackbarHostLayout hostLayout = SnackbarHostLayout.obtain(activity);
+        if (null == hostLayout) {
+            return false;
+        }
+        final View anchor = getAnchorView(topSnackbar, activity);
+        final ViewGroup.LayoutParams snackbarParams = topSnackbarView.getLayoutParams();
+        final FrameLayout.LayoutParams params;
+        if (snackbarParams instanceof FrameLayout.LayoutParams) {
+            // Positioned in place, the view keeps its layout params from one attach to the next.
+            params = (FrameLayout.LayoutParams) snackbarParams;
+            params.gravity = Gravity.TOP | Gravity.LEFT;
+        } else {
+            params = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.TOP | Gravity.LEFT);
+            if (null != snackbarParams) {
+                params.width = snackbarParams.width;
+                params.height = snackbarParams.height;
+            }
+        }
+        if (ViewGroup.LayoutParams.MATCH_PARENT == params.width && anchor != hostLayout.getParent()) {
+            params.width = anchor.getWidth();
+        }
+        hostLayout.getOffsetOf(anchor, mOffset);
+        params.leftMargin = mOffset[0];
+        params.topMargin = mOffset[1] + getTopOffset(topSnackbar, activity, anchor);
+        hostLayout.addView(topSnackbarView, params);
+        return true;
+    }
+
+    /**
+     * @return The view a {@link TopSnackbar} is displayed on top of: the supplied {@link ViewGroup},
+     * its fragment view or the content view of its {@link Activity}.
+     */
+    private View getAnchorView(TopSnackbar topSnackbar, Activity activity) {
+        if (null != topSnackbar.getViewGroup()) {
+            return topSnackbar.getViewGroup();
+        }
+        if (null != topSnackbar.getFragmentView()) {
+            return topSnackbar.getFragmentView();
+        }
+        return activity.findViewById(android.R.id.content);
+    }
+
+    /**
+     * @return The top margin needed to keep a {@link TopSnackbar} placed at the top of the anchor
+     * below the status bar, a display cutout or an overlaid action bar, as cached by the
+     * {@link SnackbarInsetTracker} of the activity. Snackbars added to a supplied {@link ViewGroup}
+     * are not offset.
+     */
+    private int getTopOffset(TopSnackbar topSnackbar, Activity activity, View anchor) {
+        if (null != topSnackbar.getViewGroup()) {
+            return 0;
+        }
+        return getInsetOffset(activity, anchor);
+    }
+
+    /**
+     * @return The top margin needed to keep a view placed at the top of the anchor below the
+     * status bar, a display cutout or an overlaid action bar, as cached by the
+     * {@link SnackbarInsetTracker} of the activity.
+     */
+    private static int getInsetOffset(Activity activity, View anchor) {
+        final SnackbarInsetTracker insetTracker = SnackbarInsetTracker.obtain(activity);
+        return null != insetTracker ? insetTracker.getTopOffset(anchor) : 0;
+    }
+
+    /**
+     * Takes the {@link TopSnackbar}s of an activity that is being re-created off its view
+     * hierarchy. They stay queued, but are not displayed until the new activity has been created.
+     * The displayed snackbar's view is detached and its remaining duration kept.
+     *
+     * @return The retained state, waiting for the new activity.
+     */
+    private RetainedState retainTopSnackbars(Activity activity) {
+        final RetainedState state = new RetainedState(activity);
+        for (TopSnackbar snackbar : mSnackbarQueue) {
+            if (activity != snackbar.getActivity()) {
+                continue;
+            }
+            if (snackbar.isShowing()) {
+                state.displayed = snackbar;
+                state.remainingDuration = getRemainingDuration(snackbar);
+                snackbar.getView().clearAnimation();
+                detachTopSnackbarView(snackbar, snackbar.getView());
+            }
+            removeAllMessagesForTopSnackbar(snackbar);
+            if (State.PREPARING == snackbar.getState()) {
+                snackbar.setState(State.QUEUED);
+            }
+            snackbar.setAwaitingHost(true);
+            state.snackbars.add(snackbar);
+        }
+        if (state.snackbars.isEmpty()) {
+            return state;
+        }
+        mRetainedStates.add(state);
+        // The new activity is created right after the old one has been destroyed.
+        mScheduler.schedule(Messages.DROP_RETAINED_STATE, state, 0, RetainedState.TIMEOUT);
+        return state;
+    }
+
+    /**
+     * @return The time in milliseconds the displayed {@link TopSnackbar} has left before its
+     * removal, or {@link SnackBarConfiguration#DURATION_INFINITE}.
+     */
+    private int getRemainingDuration(TopSnackbar snackbar) {
+        final int duration = snackbar.getSnackBarConfiguration().durationInMilliseconds;
+        if (SnackBarConfiguration.DURATION_INFINITE == duration) {
+            return SnackBarConfiguration.DURATION_INFINITE;
+        }
+        for (int i = 0; i < mHeldOperations.size(); i++) {
+            final HeldOperation held = mHeldOperations.get(i);
+            if (Messages.REMOVE_TOPSNACKBAR == held.operation && snackbar == held.snackbar) {
+                return (int) held.delay;
+            }
+        }
+        if (mScheduler.isScheduled(Messages.REMOVE_TOPSNACKBAR, snackbar)) {
+            return (int) Math.max(0, snackbar.getDismissalTime() - mScheduler.uptimeMillis());
+        }
+        if (mFrameAlignedDispatcher.hasPending(Messages.REMOVE_TOPSNACKBAR, snackbar)) {
+            return 0;
+        }
+        // The in animation has not started yet.
+        return duration;
+    }
+
+    /**
+     * Moves retained {@link TopSnackbar}s to the activity that replaces their old one. The
+     * displayed snackbar is reattached once the new activity has set up its views. Snackbars
+     * showing a custom view created by the app are dropped, the view holds the old activity as its
+     * context and would leak it and keep its theme.
+     */
+    private void rebindTopSnackbars(RetainedState state, Activity activity) {
+        mRetainedStates.remove(state);
+        mScheduler.cancel(Messages.DROP_RETAINED_STATE, state);
+        for (TopSnackbar snackbar : state.snackbars) {
+            if (!mSnackbarQueue.contains(snackbar)) {
+                continue;
+            }
+            if (snackbar.hasSuppliedView()) {
+                mSnackbarQueue.remove(snackbar);
+                snackbar.setAwaitingHost(false);
+                dropQueuedTopSnackbar(snackbar);
+                continue;
+            }
+            snackbar.rebindActivity(activity);
+            if (snackbar != state.displayed) {
+                snackbar.setAwaitingHost(false);
+            }
+        }
+        if (null != state.displayed && mSnackbarQueue.contains(state.displayed)) {
+            mScheduler.schedule(Messages.REATTACH_TOPSNACKBAR, state.displayed, state.remainingDuration, 0);
+        } else {
+            displayTopSnackbar();
+        }
+    }
+
+    /**
+     * Attaches a moved {@link TopSnackbar} at its position in the new activity, without an in
+     * animation, and schedules its removal after the remaining duration.
+     */
+    private void reattachTopSnackbar(TopSnackbar snackbar, int remainingDuration) {
+        snackbar.setAwaitingHost(false);
+        if (snackbar != mSnackbarQueue.peek()) {
+            return;
+        }
+        final View snackbarView = snackbar.getView();
+        if (null == snackbarView.getParent() && !attachTopSnackbarView(snackbar, snackbarView)) {
+            mSnackbarQueue.poll();
+            dropQueuedTopSnackbar(snackbar);
+            displayTopSnackbar();
+            return;
+        }
+        if (State.ATTACHING == snackbar.getState()) {
+            // It was moved before its in animation started.
+            snackbar.setState(State.SHOWING);
+            dispatchOnDisplayed(snackbar);
+        }
+        if (SnackBarConfiguration.DURATION_INFINITE != remainingDuration) {
+            snackbar.setDismissalTime(mScheduler.uptimeMillis() + remainingDuration);
+            sendMessageDelayed(snackbar, Messages.REMOVE_TOPSNACKBAR, remainingDuration);
+        }
+    }
+
+    /**
+     * Drops retained {@link TopSnackbar}s whose new activity has not been created in time.
+     */
+    private void dropRetainedState(RetainedState state) {
+        if (!mRetainedStates.remove(state)) {
+            return;
+        }
+        for (TopSnackbar snackbar : state.snackbars) {
+            if (mSnackbarQueue.remove(snackbar)) {
+                snackbar.setAwaitingHost(false);
+                dropQueuedTopSnackbar(snackbar);
+            }
+        }
+        stopTrackingActivitiesIfIdle();
+        displayTopSnackbar();
+    }
+
+    /**
+     * Moves all {@link TopSnackbar}s of one activity to another one.
+     */
+    void handOffTopSnackbars(Activity from, Activity to) {
+        final RetainedState state = retainTopSnackbars(from);
+        if (!state.snackbars.isEmpty()) {
+            rebindTopSnackbars(state, to);
+        }
+    }
+
+    private void dispatchOnDisplayed(TopSnackbar snackbar) {
+        if (null != mRecorder) {
+            mRecorder.recordDisplay(snackbar, mScheduler.uptimeMillis());
+        }
+        if (null != snackbar.getLifecycleCallback()) {
+            final Object section = SnackbarTrace.beginSection(SnackbarTrace.CALLBACK, snackbar);
+            snackbar.getLifecycleCallback().onDisplayed();
+            SnackbarTrace.endSection(section);
+        }
+    }
+
+    /**
+     * Hides a {@link TopSnackbar}. A displayed snackbar is animated out and the next one is
+     * displayed once the out animation has finished. A snackbar that has not been displayed yet
+     * is dropped from the queue. Hiding a snackbar that is already hidden does nothing.
+     *
+     * @param snackbar The {@link TopSnackbar} that should be removed.
+     */
+    protected void removeTopSnackbar(TopSnackbar snackbar) {
+        final int state = snackbar.getState();
+        if (State.QUEUED == state || State.PREPARING == state) {
+            final boolean isCurrent = snackbar == mSnackbarQueue.peek();
+            mSnackbarQueue.remove(snackbar);
+            dropQueuedTopSnackbar(snackbar);
+            if (isCurrent) {
+                displayTopSnackbar();
+            }
+            return;
+        }
+        if (State.ATTACHING != state && State.SHOWING != state) {
+            return;
+        }
+        removeAllMessagesForTopSnackbar(snackbar);
+        snackbar.setState(State.HIDING);
+
+        final View snackbarView = snackbar.getView();
+        final Object section = SnackbarTrace.beginSection(SnackbarTrace.REMOVE, snackbar);
+        snackbarView.startAnimation(snackbar.getOutAnimation());
+        SnackbarTrace.traceAnimation(SnackbarTrace.OUT_ANIMATION, snackbar,
+                snackbar.getOutAnimation().getDuration());
+        final long outAnimationDuration = snackbar.getOutAnimation().getDuration();
+
+        // Remove the Snackbar from the view's parent and from the queue. The parent keeps drawing
+        // the view until the out animation has finished, its views are released after that.
+        final ViewParent parent = snackbarView.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).startViewTransition(snackbarView);
+            snackbar.setLeavingParent((ViewGroup) parent);
+            mLeavingTopSnackbars.add(snackbar);
+        }
+        detachTopSnackbarView(snackbar, snackbarView);
+        mSnackbarQueue.remove(snackbar);
+        snackbar.detachActivity();
+        snackbar.detachFragment();
+        snackbar.detachViewGroup();
+        onTopSnackbarReleased(snackbar);
+
+        // Send a message to display the next Snackbar but delay it by the out
+        // animation duration to make sure it finishes, the view is released then
+        sendMessageDelayed(snackbar, Messages.DISPLAY_TOPSNACKBAR, outAnimationDuration);
+        SnackbarTrace.endSection(section);
+    }
+
+    /**
+     * Ends the out animation of a removed {@link TopSnackbar}'s view, so its parent no longer
+     * draws it, and releases its views if the snackbar has not been queued again. Does nothing if
+     * the view is not animated out.
+     */
+    private void finishLeaving(TopSnackbar snackbar) {
+        final ViewGroup parent = snackbar.getLeavingParent();
+        if (null == parent) {
+            return;
+        }
+        snackbar.setLeavingParent(null);
+        mLeavingTopSnackbars.remove(snackbar);
+        final View view = snackbar.getView();
+        parent.endViewTransition(view);
+        view.clearAnimation();
+        SnackbarWindowHost.removeWindow(parent);
+        if (State.DONE == snackbar.getState()) {
+            snackbar.releaseViews();
+        }
+    }
+
+    /**
+     * Hides a {@link TopSnackbar} on request of the app.
+     *
+     * @see #removeTopSnackbar(TopSnackbar)
+     */
+    void hide(TopSnackbar snackbar) {
+        if (null != mRecorder && snackbar.isInManager()) {
+            mRecorder.recordHide(snackbar, mScheduler.uptimeMillis());
+        }
+        removeTopSnackbar(snackbar);
+    }
+
+    /**
+     * Removes a {@link TopSnackbar} immediately, even when it's currently being
+     * displayed.
+     *
+     * @param topSnackbar The {@link TopSnackbar} that should be removed.
+     */
+    void removeTopSnackbarImmediately(TopSnackbar topSnackbar) {
+        if (!topSnackbar.isInManager()) {
+            return;
+        }
+        if (null != mRecorder) {
+            mRecorder.recordCancel(topSnackbar, mScheduler.uptimeMillis());
+        }
+        final boolean isCurrent = topSnackbar == mSnackbarQueue.peek();
+        // remove the topSnackbar from the content view
+        removeTopSnackbarFromViewParent(topSnackbar);
+        mSnackbarQueue.remove(topSnackbar);
+        dropQueuedTopSnackbar(topSnackbar);
+        if (isCurrent) {
+            displayTopSnackbar();
+        }
+    }
+
+    /**
+     * Removes all {@link TopSnackbar}s from the queue.
+     */
+    public void clearTopSnackbarQueue() {
+        removeAllMessages();
+
+        // remove any views that may already have been added to the activity's
+        // content view
+        final TopSnackbar[] cleared = mSnackbarQueue.toArray(new TopSnackbar[0]);
+        for (TopSnackbar Snackbar : cleared) {
+            removeTopSnackbarFromViewParent(Snackbar);
+        }
+        mSnackbarQueue.clear();
+        for (TopSnackbar snackbar : mExpiryIndex) {
+            snackbar.setInExpiryIndex(false);
+        }
+        mExpiryIndex.clear();
+        mRetainedStates.clear();
+        for (TopSnackbar Snackbar : cleared) {
+            onTopSnackbarReleased(Snackbar);
+        }
+        // Their DISPLAY_TOPSNACKBAR messages have been dropped with the others.
+        for (int i = mLeavingTopSnackbars.size() - 1; i >= 0; i--) {
+            finishLeaving(mLeavingTopSnackbars.get(i));
+        }
+    }
+
+    /**
+     * Removes all {@link TopSnackbar}s for the provided activity. This will remove
+     * Snackbar from {@link Activity}s content view immediately.
      */
     void clearTopSnackbarForActivity(Activity activity) {
+        final TopSnackbar current = mSnackbarQueue.peek();
+        final List<TopSnackbar> cleared = new ArrayList<TopSnackbar>();
         Iterator<TopSnackbar> SnackbarIterator = mSnackbarQueue.iterator();
         while (SnackbarIterator.hasNext()) {
             TopSnackbar Snackbar = SnackbarIterator.next();
@@ -416,30 +1782,129 @@ public class SnackbarManager extends Handler {
                 // remove the Snackbar from the queue
 
                 SnackbarIterator.remove();
+                cleared.add(Snackbar);
             }
         }
+        // Released once the queue is no longer iterated, their listeners may enqueue again.
+        for (TopSnackbar Snackbar : cleared) {
+            onTopSnackbarReleased(Snackbar);
+        }
+        if (current != mSnackbarQueue.peek()) {
+            displayTopSnackbar();
+        }
     }
 
     private void removeTopSnackbarFromViewParent(TopSnackbar snackbar) {
         if (snackbar.isShowing()) {
-            ViewGroup parent = (ViewGroup) snackbar.getView().getParent();
-            if (null != parent) {
-                parent.removeView(snackbar.getView());
+            detachTopSnackbarView(snackbar, snackbar.getView());
+        }
+    }
+
+    /**
+     * Detaches a snackbar view from its parent {@link ViewGroup}. In
+     * {@link SnackBarConfiguration#DISPLAY_MODE_WINDOW} the parent is the container of its window,
+     * which is removed as well unless the view is animated out of it.
+     *
+     * @param snackbar     The {@link TopSnackbar} the view belongs to.
+     * @param snackbarView The view to detach.
+     */
+    private void detachTopSnackbarView(TopSnackbar snackbar, View snackbarView) {
+        SnackbarTrace.endAsyncSection(SnackbarTrace.VISIBLE, snackbar);
+        final ViewParent parent = snackbarView.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(snackbarView);
+            // The window of a view animated out is removed once the animation has finished.
+            if (parent != snackbar.getLeavingParent()) {
+                SnackbarWindowHost.removeWindow((ViewGroup) parent);
             }
         }
     }
 
+    /**
+     * Called once a {@link TopSnackbar} has left the queue, moving it to {@link State#DONE} and
+     * removing its expiry index entry. Dispatches {@link LifecycleCallback#onRemoved()} if the
+     * snackbar has been displayed and notifies its {@link OnReleasedListener}. Does nothing for a
+     * snackbar that is already done, so each callback is dispatched at most once.
+     */
+    private void onTopSnackbarReleased(TopSnackbar snackbar) {
+        final int state = snackbar.getState();
+        if (State.DONE == state) {
+            return;
+        }
+        snackbar.setState(State.DONE);
+        snackbar.setAwaitingHost(false);
+        if (snackbar.isInExpiryIndex()) {
+            mExpiryIndex.remove(snackbar);
+            snackbar.setInExpiryIndex(false);
+        }
+        snackbar.releaseViews();
+        if (state >= State.SHOWING && null != snackbar.getLifecycleCallback()) {
+            final Object section = SnackbarTrace.beginSection(SnackbarTrace.CALLBACK, snackbar);
+            snackbar.getLifecycleCallback().onRemoved();
+            SnackbarTrace.endSection(section);
+        }
+        snackbar.detachLifecycleCallback();
+        mRetainedBytes -= snackbar.getRetainedBytes();
+        snackbar.setRetainedBytes(0);
+        stopTrackingActivitiesIfIdle();
+        final OnReleasedListener listener = snackbar.getOnReleasedListener();
+        if (null != listener) {
+            snackbar.setOnReleasedListener(null);
+            listener.onReleased(snackbar);
+        }
+    }
+
+    /**
+     * Stops tracking the activities of the application once the manager holds no snackbars, so an
+     * idle manager is not kept alive by the application. Tracking starts again with the next one.
+     */
+    private void stopTrackingActivitiesIfIdle() {
+        if (null != mTrackedApplication && mSnackbarQueue.isEmpty() && mRetainedStates.isEmpty()) {
+            mTrackedApplication.unregisterActivityLifecycleCallbacks(mActivityLifecycleCallbacks);
+            mTrackedApplication = null;
+        }
+    }
+
+    /**
+     * Clears the queue and stops tracking the activities of the application. Call it once a
+     * manager created with {@link #SnackbarManager(SnackbarScheduler)} is no longer needed.
+     */
+    public void release() {
+        clearTopSnackbarQueue();
+        mRecorder = null;
+        stopTrackingActivitiesIfIdle();
+    }
+
     private void removeAllMessages() {
-        removeMessages(Messages.ADD_TOPSNACKBAR_TO_VIEW);
-        removeMessages(Messages.DISPLAY_TOPSNACKBAR);
-        removeMessages(Messages.REMOVE_TOPSNACKBAR);
+        mScheduler.cancel(Messages.ADD_TOPSNACKBAR_TO_VIEW, null);
+        mScheduler.cancel(Messages.DISPLAY_TOPSNACKBAR, null);
+        mScheduler.cancel(Messages.REMOVE_TOPSNACKBAR, null);
+        mScheduler.cancel(Messages.ENQUEUE_BATCH, null);
+        mScheduler.cancel(Messages.RELEASE_HELD_OPERATIONS, null);
+        mScheduler.cancel(Messages.REATTACH_TOPSNACKBAR, null);
+        mScheduler.cancel(Messages.DROP_RETAINED_STATE, null);
+        mScheduler.cancel(Messages.PRERENDER_TOPSNACKBARS, null);
+        mScheduler.cancel(Messages.START_IN_ANIMATION, null);
+        mFrameAlignedDispatcher.clear();
+        for (int i = mHeldOperations.size() - 1; i >= 0; i--) {
+            recycleHeldOperation(mHeldOperations.remove(i));
+        }
     }
 
     private void removeAllMessagesForTopSnackbar(TopSnackbar snackbar) {
-        removeMessages(Messages.ADD_TOPSNACKBAR_TO_VIEW, snackbar);
-        removeMessages(Messages.DISPLAY_TOPSNACKBAR, snackbar);
-        removeMessages(Messages.REMOVE_TOPSNACKBAR, snackbar);
-
+        mScheduler.cancel(Messages.ADD_TOPSNACKBAR_TO_VIEW, snackbar);
+        mScheduler.cancel(Messages.DISPLAY_TOPSNACKBAR, snackbar);
+        mScheduler.cancel(Messages.REMOVE_TOPSNACKBAR, snackbar);
+        mScheduler.cancel(Messages.RELEASE_HELD_OPERATIONS, snackbar);
+        mScheduler.cancel(Messages.REATTACH_TOPSNACKBAR, snackbar);
+        mScheduler.cancel(Messages.PRERENDER_TOPSNACKBARS, snackbar);
+        mScheduler.cancel(Messages.START_IN_ANIMATION, snackbar);
+        mFrameAlignedDispatcher.remove(snackbar);
+        for (int i = mHeldOperations.size() - 1; i >= 0; i--) {
+            if (snackbar == mHeldOperations.get(i).snackbar) {
+                recycleHeldOperation(mHeldOperations.remove(i));
+            }
+        }
     }
 
     @Override
@@ -449,9 +1914,129 @@ public class SnackbarManager extends Handler {
                 '}';
     }
 
+    /**
+     * Internal listener notified once a {@link TopSnackbar} has left the manager, either after it
+     * has been displayed and removed or because it has been cancelled or cleared from the queue.
+     */
+    interface OnReleasedListener {
+        void onReleased(TopSnackbar snackbar);
+    }
+
+    /**
+     * Starts the in animation of a {@link TopSnackbar} once its attached view has been laid out,
+     * then goes back to the free listeners.
+     */
+    private final class LayoutListener implements ViewTreeObserver.OnGlobalLayoutListener {
+        TopSnackbar snackbar;
+        View snackbarView;
+
+        @Override
+        @TargetApi(16)
+        public void onGlobalLayout() {
+            final TopSnackbar topSnackbar = snackbar;
+            final View topSnackbarView = snackbarView;
+            if (null == topSnackbarView) {
+                return;
+            }
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+                topSnackbarView.getViewTreeObserver().removeGlobalOnLayoutListener(this);
+            } else {
+                topSnackbarView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
+            }
+            snackbar = null;
+            snackbarView = null;
+            mFreeLayoutListeners.add(this);
+
+            final long start = beginWork();
+            startInAnimation(topSnackbar, topSnackbarView);
+            endWork(start);
+        }
+    }
+
+    /**
+     * An attach or remove operation held back while an activity is scrolling. Reused once released.
+     */
+    private static final class HeldOperation {
+        int operation;
+        TopSnackbar snackbar;
+        SnackbarBusySignal signal;
+        long delay;
+    }
+
+    /**
+     * The {@link TopSnackbar}s of an activity that is being re-created.
+     */
+    private static final class RetainedState {
+        /**
+         * The time in milliseconds to wait for the new activity before the snackbars are dropped.
+         */
+        static final long TIMEOUT = 5000;
+
+        final Class<?> activityClass;
+        final int taskId;
+        final List<TopSnackbar> snackbars = new ArrayList<TopSnackbar>();
+        TopSnackbar displayed;
+        int remainingDuration;
+
+        RetainedState(Activity activity) {
+            this.activityClass = activity.getClass();
+            this.taskId = activity.getTaskId();
+        }
+
+        boolean isReplacedBy(Activity activity) {
+            return activityClass == activity.getClass() && taskId == activity.getTaskId();
+        }
+    }
+
+    /**
+     * The states a {@link TopSnackbar} goes through, in order. Each transition is made by exactly
+     * one event, so a state check replaces looking for pending messages.
+     */
+    static final class State {
+        /**
+         * Not handed to the manager yet.
+         */
+        static final int NEW = 0;
+        /**
+         * Waiting in the queue.
+         */
+        static final int QUEUED = 1;
+        /**
+         * At the head of the queue, its attach is scheduled.
+         */
+        static final int PREPARING = 2;
+        /**
+         * Attached, waiting for its first layout, or on a scheduler other than a
+         * {@link LooperScheduler} for its due time, to start the in animation.
+         */
+        static final int ATTACHING = 3;
+        /**
+         * Displayed, its removal is scheduled unless its duration is infinite.
+         */
+        static final int SHOWING = 4;
+        /**
+         * Animating out.
+         */
+        static final int HIDING = 5;
+        /**
+         * Left the manager. May be shown again.
+         */
+        static final int DONE = 6;
+
+        private State() {
+            /* no-op */
+        }
+    }
+
     private static final class Messages {
         public static final int DISPLAY_TOPSNACKBAR = 0xc2007;
         public static final int ADD_TOPSNACKBAR_TO_VIEW = 0xc20074dd;
         public static final int REMOVE_TOPSNACKBAR = 0xc2007de1;
+        public static final int ENQUEUE_BATCH = 0xc2007ba7;
+        public static final int RELEASE_HELD_OPERATIONS = 0xc200714d;
+        public static final int REATTACH_TOPSNACKBAR = 0xc2007a77;
+        public static final int DROP_RETAINED_STATE = 0xc2007d60;
+        public static final int PRERENDER_TOPSNACKBARS = 0xc2007e4d;
+        public static final int START_IN_ANIMATION = 0xc20071a7;
     }
 }
@@ -0,0 +1,174 @@
+package com.amitnadiger.customTopSnackbar;
+
+
+/**
+ * Limits applied by the {@link SnackbarManager} to its queue of pending snackbars.
+ */
+public class SnackbarQueueConfiguration {
+    public static final int CAPACITY_UNBOUNDED = Integer.MAX_VALUE;
+    public static final long RETAINED_BYTES_UNBOUNDED = -1;
+
+    /**
+     * When the queue is full, the new snackbar is not queued.
+     */
+    public static final int OVERFLOW_REJECT = 0;
+    /**
+     * When the queue is full, the oldest queued snackbar that is not displayed yet is dropped.
+     */
+    public static final int OVERFLOW_EVICT_OLDEST = 1;
+    /**
+     * When the queue is full, the oldest queued snackbar with the lowest priority is dropped. If
+     * all queued snackbars have a higher priority than the new one, the new one is not queued.
+     */
+    public static final int OVERFLOW_EVICT_LOWEST_PRIORITY = 2;
+    /**
+     * When the queue is full, a queued snackbar showing the same text with the same style is
+     * dropped in favour of the new one. If there is none, the oldest queued snackbar is dropped.
+     */
+    public static final int OVERFLOW_COLLAPSE = 3;
+
+    public static final int COLLAPSE_THRESHOLD_DISABLED = 0;
+
+    /**
+     * When the backlog passes the collapse threshold, all snackbars waiting to be displayed are
+     * folded into one summary per activity.
+     */
+    public static final int COLLAPSE_ALL = 0;
+    /**
+     * When the backlog passes the collapse threshold, snackbars waiting to be displayed are folded
+     * into one summary per activity and category.
+     *
+     * @see TopSnackbar#setCategory(String)
+     */
+    public static final int COLLAPSE_BY_CATEGORY = 1;
+
+    public static final SnackbarQueueConfiguration DEFAULT;
+
+    static {
+        DEFAULT = new Builder().build();
+    }
+
+    final int capacity;
+    final int overflowPolicy;
+    final long maxRetainedBytes;
+    final int collapseThreshold;
+    final int collapsePolicy;
+    final SnackbarAggregator aggregator;
+    final int prerenderDepth;
+
+    private SnackbarQueueConfiguration(Builder builder) {
+        this.capacity = builder.capacity;
+        this.overflowPolicy = builder.overflowPolicy;
+        this.maxRetainedBytes = builder.maxRetainedBytes;
+        this.collapseThreshold = builder.collapseThreshold;
+        this.collapsePolicy = builder.collapsePolicy;
+        this.aggregator = builder.aggregator;
+        this.prerenderDepth = builder.prerenderDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "SnackbarQueueConfiguration{" +
+                "capacity=" + capacity +
+                ", overflowPolicy=" + overflowPolicy +
+                ", maxRetainedBytes=" + maxRetainedBytes +
+                ", collapseThreshold=" + collapseThreshold +
+                ", collapsePolicy=" + collapsePolicy +
+                ", aggregator=" + aggregator +
+                ", prerenderDepth=" + prerenderDepth +
+                '}';
+    }
+
+    public static class Builder {
+        private int capacity = CAPACITY_UNBOUNDED;
+        private int overflowPolicy = OVERFLOW_EVICT_OLDEST;
+        private long maxRetainedBytes = RETAINED_BYTES_UNBOUNDED;
+        private int collapseThreshold = COLLAPSE_THRESHOLD_DISABLED;
+        private int collapsePolicy = COLLAPSE_ALL;
+        private SnackbarAggregator aggregator;
+        private int prerenderDepth = 0;
+
+        /**
+         * The maximum number of queued snackbars, including the one currently displayed.
+         */
+        public Builder setCapacity(final int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be at least 1");
+            }
+            this.capacity = capacity;
+
+            return this;
+        }
+
+        /**
+         * One of the <code>OVERFLOW_*</code> constants, applied when the capacity or the retained
+         * bytes ceiling would be exceeded.
+         */
+        public Builder setOverflowPolicy(final int overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+
+            return this;
+        }
+
+        /**
+         * An upper bound for the estimated memory retained by queued snackbars, counting their
+         * built views and bitmaps.
+         */
+        public Builder setMaxRetainedBytes(final long maxRetainedBytes) {
+            this.maxRetainedBytes = maxRetainedBytes;
+
+            return this;
+        }
+
+        /**
+         * The number of snackbars waiting to be displayed above which they are folded into
+         * summaries built by the {@link SnackbarAggregator}. The folded snackbars are released
+         * without their views ever being built. {@link #COLLAPSE_THRESHOLD_DISABLED} by default.
+         */
+        public Builder setCollapseThreshold(final int collapseThreshold) {
+            if (collapseThreshold < 0) {
+                throw new IllegalArgumentException("collapseThreshold must not be negative");
+            }
+            this.collapseThreshold = collapseThreshold;
+
+            return this;
+        }
+
+        /**
+         * {@link #COLLAPSE_ALL} or {@link #COLLAPSE_BY_CATEGORY}.
+         */
+        public Builder setCollapsePolicy(final int collapsePolicy) {
+            this.collapsePolicy = collapsePolicy;
+
+            return this;
+        }
+
+        /**
+         * The aggregator building the summaries. Nothing is collapsed without one.
+         */
+        public Builder setAggregator(final SnackbarAggregator aggregator) {
+            this.aggregator = aggregator;
+
+            return this;
+        }
+
+        /**
+         * The number of queued snackbars whose views are built, measured and given their
+         * animations while the current one is displayed, so attaching them later only adds the
+         * view. Views are not prerendered beyond the retained bytes ceiling. 0, the default,
+         * disables prerendering.
+         */
+        public Builder setPrerenderDepth(final int prerenderDepth) {
+            if (prerenderDepth < 0) {
+                throw new IllegalArgumentException("prerenderDepth must not be negative");
+            }
+            this.prerenderDepth = prerenderDepth;
+
+            return this;
+        }
+
+        public SnackbarQueueConfiguration build() {
+            return new SnackbarQueueConfiguration(this);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.view.View;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+
+/**
+ * Records the snackbar traffic of a {@link SnackbarManager} into a compact binary trace, to be
+ * played back with {@link SnackbarReplay}.
+ * <p>
+ * Each enqueue, display, hide and cancel is written with its time on the manager's
+ * {@link SnackbarScheduler} clock. Enqueues carry the tag, a style id, the text length, the host,
+ * the duration, the priority, the show mode and the key. Texts themselves are not recorded. Style
+ * ids number the distinct {@link Style}s in the order they are first seen. Strings are written
+ * once and referred to by index afterwards.
+ * </p>
+ * <p>
+ * Records are buffered and written on the manager's thread. A write error stops the recording,
+ * it never breaks displaying snackbars, see {@link #getError()}.
+ * </p>
+ */
+public final class SnackbarRecorder implements Closeable {
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+
+    static final int MAGIC = 0x54535452;
+    static final int FORMAT_VERSION = 1;
+
+    static final byte EVENT_ENQUEUE = 0;
+    static final byte EVENT_DISPLAY = 1;
+    static final byte EVENT_HIDE = 2;
+    static final byte EVENT_CANCEL = 3;
+
+    private final DataOutputStream out;
+    private final Map<Style, Integer> styleIds = new IdentityHashMap<Style, Integer>();
+    private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+    private long lastTime = -1;
+    private int nextId = 1;
+    private IOException error;
+    private boolean isClosed;
+
+    /**
+     * @param out The stream to write the trace to. It is closed with the recorder.
+     * @throws IOException if the header could not be written.
+     */
+    public SnackbarRecorder(OutputStream out) throws IOException {
+        if (null == out) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(FORMAT_VERSION);
+    }
+
+    /**
+     * @param file The file to write the trace to, it is replaced if it exists.
+     * @throws IOException if the file could not be created.
+     */
+    public SnackbarRecorder(File file) throws IOException {
+        this(new FileOutputStream(file));
+    }
+
+    /**
+     * @return The error that stopped the recording, or <code>null</code>.
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Writes the buffered records and closes the stream. Detach the recorder from its manager
+     * first, later events are ignored.
+     */
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        out.close();
+    }
+
+    void recordEnqueue(TopSnackbar snackbar, long time) {
+        if (0 == snackbar.getTraceId()) {
+            snackbar.setTraceId(nextId++);
+        }
+        if (!beginRecord(EVENT_ENQUEUE, snackbar, time)) {
+            return;
+        }
+        final SnackBarConfiguration configuration = snackbar.getSnackBarConfiguration();
+        try {
+            writeString(snackbar.peekTag());
+            writeVarInt(getStyleId(snackbar.getStyle()));
+            writeVarInt(null != snackbar.getText() ? snackbar.getText().length() : 0);
+            writeString(getHostKey(snackbar));
+            writeVarInt(zigZag(configuration.durationInMilliseconds));
+            writeVarInt(zigZag(configuration.priority));
+            writeVarInt(configuration.showMode);
+            writeString(snackbar.getKey());
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    void recordDisplay(TopSnackbar snackbar, long time) {
+        beginRecord(EVENT_DISPLAY, snackbar, time);
+    }
+
+    void recordHide(TopSnackbar snackbar, long time) {
+        beginRecord(EVENT_HIDE, snackbar, time);
+    }
+
+    void recordCancel(TopSnackbar snackbar, long time) {
+        beginRecord(EVENT_CANCEL, snackbar, time);
+    }
+
+    /**
+     * Writes the event, the time since the previous one and the snackbar's id.
+     *
+     * @return <code>false</code> if the recording has stopped.
+     */
+    private boolean beginRecord(byte event, TopSnackbar snackbar, long time) {
+        if (null != error || isClosed || 0 == snackbar.getTraceId()) {
+            return false;
+        }
+        try {
+            out.writeByte(event);
+            // The first record holds the absolute time, the others the time since the previous one.
+            writeVarLong(lastTime < 0 ? time : Math.max(0, time - lastTime));
+            lastTime = Math.max(lastTime, time);
+            writeVarInt(snackbar.getTraceId());
+            return true;
+        } catch (IOException e) {
+            error = e;
+            return false;
+        }
+    }
+
+    private int getStyleId(Style style) {
+        if (null == style) {
+            return 0;
+        }
+        Integer id = styleIds.get(style);
+        if (null == id) {
+            id = styleIds.size() + 1;
+            styleIds.put(style, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return The activity class and the id of the view the snackbar is added to, if any.
+     */
+    private static String getHostKey(TopSnackbar snackbar) {
+        final Activity activity = snackbar.getActivity();
+        if (null == activity) {
+            return null;
+        }
+        final View host = null != snackbar.getViewGroup() ? snackbar.getViewGroup() : snackbar.getFragmentView();
+        final String name = activity.getClass().getName();
+        return null != host ? name + '#' + Integer.toHexString(host.getId()) : name;
+    }
+
+    /**
+     * Writes <code>0</code> for <code>null</code>, the index plus one of a string written before,
+     * or the next index plus one followed by the string.
+     */
+    private void writeString(String value) throws IOException {
+        if (null == value) {
+            writeVarInt(0);
+            return;
+        }
+        final Integer index = stringIndexes.get(value);
+        if (null != index) {
+            writeVarInt(index + 1);
+            return;
+        }
+        final int newIndex = stringIndexes.size();
+        stringIndexes.put(value, newIndex);
+        writeVarInt(newIndex + 1);
+        out.writeUTF(value);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xffffffffL);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+}
@@ -0,0 +1,592 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.SparseArray;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Plays a trace written by a {@link SnackbarRecorder} back through a {@link SnackbarManager} of its
+ * own and reports how the queue coped with it.
+ * <p>
+ * {@link #run(Activity)} plays the trace on a {@link VirtualTimeScheduler}, as fast as the
+ * manager's work allows. Nothing waits for a layout pass or a looper, so it runs headless, e.g.
+ * under Robolectric. {@link #start(Activity, float, Callback)}
+ * plays it on the main thread in real time, or accelerated: event times and display durations
+ * are divided by the speed, animations keep their length.
+ * </p>
+ * <p>
+ * Snackbars are re-created with a text of the recorded length, the recorded tag, key, duration,
+ * priority and show mode, and the {@link Style} set for their style id with
+ * {@link #setStyle(int, Style)}, or a default style. All are shown in the given activity, the
+ * recorded host is kept in the trace for reference only. Hides and cancels are replayed as
+ * recorded, snackbars the recorded app did not remove are left to their duration.
+ * </p>
+ */
+public final class SnackbarReplay {
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+
+    public interface Callback {
+        /**
+         * Will be called on the main thread once the trace has been played and all its snackbars
+         * have left the queue, or the replay has been stopped.
+         */
+        void onReplayFinished(Report report);
+    }
+
+    /**
+     * What happened to the snackbars of a replay.
+     */
+    public static final class Report {
+        private final int enqueuedCount;
+        private final int displayedCount;
+        private final int droppedCount;
+        private final int cancelledCount;
+        private final int pendingCount;
+        private final long meanQueueLatency;
+        private final long p95QueueLatency;
+        private final long maxQueueLatency;
+        private final long mainThreadNanos;
+
+        private Report(Session session) {
+            enqueuedCount = session.enqueuedCount;
+            displayedCount = session.latencyCount;
+            droppedCount = session.droppedCount;
+            cancelledCount = session.cancelledCount;
+            pendingCount = session.active.size();
+            final long[] latencies = Arrays.copyOf(session.latencies, session.latencyCount);
+            Arrays.sort(latencies);
+            long sum = 0;
+            for (long latency : latencies) {
+                sum += latency;
+            }
+            meanQueueLatency = 0 == latencies.length ? 0 : sum / latencies.length;
+            p95QueueLatency = 0 == latencies.length ? 0 : latencies[(latencies.length * 95 - 1) / 100];
+            maxQueueLatency = 0 == latencies.length ? 0 : latencies[latencies.length - 1];
+            mainThreadNanos = session.manager.getWorkNanos() - session.startWorkNanos + session.callNanos;
+        }
+
+        /**
+         * @return The number of snackbars shown.
+         */
+        public int getEnqueuedCount() {
+            return enqueuedCount;
+        }
+
+        /**
+         * @return The number of snackbars that have been displayed.
+         */
+        public int getDisplayedCount() {
+            return displayedCount;
+        }
+
+        /**
+         * @return The number of snackbars that left the queue without being displayed, e.g. on
+         * overflow, expiry, or superseded, and had not been cancelled by the trace.
+         */
+        public int getDroppedCount() {
+            return droppedCount;
+        }
+
+        /**
+         * @return The number of snackbars hidden or cancelled by the trace before being displayed.
+         */
+        public int getCancelledCount() {
+            return cancelledCount;
+        }
+
+        /**
+         * @return The number of snackbars still in the queue when the report was made.
+         */
+        public int getPendingCount() {
+            return pendingCount;
+        }
+
+        /**
+         * @return The mean time from showing a snackbar to displaying it, in milliseconds of the
+         * manager's clock.
+         */
+        public long getMeanQueueLatency() {
+            return meanQueueLatency;
+        }
+
+        /**
+         * @return The 95th percentile of the time from showing a snackbar to displaying it.
+         */
+        public long getP95QueueLatency() {
+            return p95QueueLatency;
+        }
+
+        /**
+         * @return The longest time from showing a snackbar to displaying it.
+         */
+        public long getMaxQueueLatency() {
+            return maxQueueLatency;
+        }
+
+        /**
+         * @return The time spent on the main thread showing, hiding and cancelling snackbars and in
+         * the manager's callbacks, in nanoseconds. Layout and drawing are not included.
+         */
+        public long getMainThreadNanos() {
+            return mainThreadNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Report{" +
+                    "enqueuedCount=" + enqueuedCount +
+                    ", displayedCount=" + displayedCount +
+                    ", droppedCount=" + droppedCount +
+                    ", cancelledCount=" + cancelledCount +
+                    ", pendingCount=" + pendingCount +
+                    ", meanQueueLatency=" + meanQueueLatency +
+                    ", p95QueueLatency=" + p95QueueLatency +
+                    ", maxQueueLatency=" + maxQueueLatency +
+                    ", mainThreadNanos=" + mainThreadNanos +
+                    '}';
+        }
+    }
+
+    private static final class Event {
+        byte type;
+        long time;
+        int id;
+        String tag;
+        int styleId;
+        int textLength;
+        String hostKey;
+        int duration;
+        int priority;
+        int showMode;
+        String key;
+    }
+
+    private final List<Event> events;
+    private final SparseArray<Style> styles = new SparseArray<Style>();
+    private Style defaultStyle;
+    private Session runningSession;
+    /**
+     * The manager of the last {@link #run(Activity, VirtualTimeScheduler)}, reused while it is
+     * given the same scheduler. It is released after each run.
+     */
+    private SnackbarManager virtualTimeManager;
+    private VirtualTimeScheduler virtualTimeScheduler;
+    /**
+     * The manager of {@link #start(Activity, float, Callback)}, released after each replay.
+     */
+    private SnackbarManager realTimeManager;
+
+    private SnackbarReplay(List<Event> events) {
+        this.events = events;
+    }
+
+    /**
+     * Reads a trace written by a {@link SnackbarRecorder}. A trace cut off by a crash is read up
+     * to its last complete record.
+     *
+     * @param in The stream to read, it is not closed.
+     * @throws IOException if the stream could not be read or does not hold a snackbar trace.
+     */
+    public static SnackbarReplay read(InputStream in) throws IOException {
+        if (null == in) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (SnackbarRecorder.MAGIC != data.readInt()) {
+            throw new IOException("Not a snackbar trace");
+        }
+        final int version = data.readInt();
+        if (SnackbarRecorder.FORMAT_VERSION != version) {
+            throw new IOException("Unsupported snackbar trace version " + version);
+        }
+        final List<Event> events = new ArrayList<Event>();
+        final List<String> strings = new ArrayList<String>();
+        long time = 0;
+        while (true) {
+            final int type = data.read();
+            if (type < 0) {
+                break;
+            }
+            try {
+                final Event event = new Event();
+                event.type = (byte) type;
+                final long delta = readVarLong(data);
+                time = events.isEmpty() ? delta : time + delta;
+                event.time = time;
+                event.id = (int) readVarLong(data);
+                if (SnackbarRecorder.EVENT_ENQUEUE == event.type) {
+                    event.tag = readString(data, strings);
+                    event.styleId = (int) readVarLong(data);
+                    event.textLength = (int) readVarLong(data);
+                    event.hostKey = readString(data, strings);
+                    event.duration = unZigZag((int) readVarLong(data));
+                    event.priority = unZigZag((int) readVarLong(data));
+                    event.showMode = (int) readVarLong(data);
+                    event.key = readString(data, strings);
+                }
+                events.add(event);
+            } catch (EOFException e) {
+                // The recording ended within this record.
+                break;
+            }
+        }
+        return new SnackbarReplay(events);
+    }
+
+    /**
+     * Reads a trace file written by a {@link SnackbarRecorder}.
+     *
+     * @throws IOException if the file could not be read or does not hold a snackbar trace.
+     */
+    public static SnackbarReplay read(File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return The number of recorded events.
+     */
+    public int getEventCount() {
+        return events.size();
+    }
+
+    /**
+     * @return The time between the first and the last recorded event, in milliseconds.
+     */
+    public long getRecordedDuration() {
+        return events.isEmpty() ? 0 : events.get(events.size() - 1).time - events.get(0).time;
+    }
+
+    /**
+     * Sets the style used for the snackbars recorded with the given style id. Ids number the
+     * distinct styles of the recording in the order they were first shown, starting at 1.
+     */
+    public SnackbarReplay setStyle(int styleId, Style style) {
+        if (null == style) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        styles.put(styleId, style);
+        return this;
+    }
+
+    /**
+     * Plays the trace on a new {@link VirtualTimeScheduler}, see {@link #run(Activity, VirtualTimeScheduler)}.
+     */
+    public Report run(Activity activity) {
+        return run(activity, new VirtualTimeScheduler());
+    }
+
+    /**
+     * Plays the whole trace on the given scheduler, advancing its clock from one event to the next,
+     * then runs it until idle. Returns once done. Views are attached to the activity's hierarchy,
+     * but their display and removal are driven by the scheduler alone, no layout pass or looper has
+     * to run. The manager is released afterwards, and reused by the next run on the same scheduler.
+     *
+     * @param activity  The activity to show the snackbars in.
+     * @param scheduler The scheduler to run the manager on, it must not be used by another one.
+     * @return What happened to the snackbars.
+     */
+    public Report run(Activity activity, VirtualTimeScheduler scheduler) {
+        if (null == activity || null == scheduler) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        if (scheduler != virtualTimeScheduler) {
+            virtualTimeManager = new SnackbarManager(scheduler);
+            virtualTimeScheduler = scheduler;
+        }
+        final Session session = new Session(activity, virtualTimeManager, 1);
+        try {
+            if (!events.isEmpty()) {
+                final long offset = scheduler.uptimeMillis() - events.get(0).time;
+                for (Event event : events) {
+                    scheduler.advanceTo(event.time + offset);
+                    session.apply(event);
+                }
+            }
+            scheduler.runUntilIdle();
+            return new Report(session);
+        } finally {
+            session.manager.release();
+        }
+    }
+
+    /**
+     * Starts playing the trace on the main thread, in real time or accelerated. Only one replay
+     * may run at a time.
+     *
+     * @param activity The activity to show the snackbars in.
+     * @param speed    How much faster than recorded the trace is played, 1 for real time.
+     * @param callback Told once the replay has finished.
+     */
+    public void start(Activity activity, float speed, Callback callback) {
+        if (null == activity || null == callback) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        if (speed <= 0) {
+            throw new IllegalArgumentException("The speed must be positive");
+        }
+        if (null != runningSession) {
+            throw new IllegalStateException("The replay is already running");
+        }
+        if (null == realTimeManager) {
+            realTimeManager = new SnackbarManager(new LooperScheduler(Looper.getMainLooper()));
+        }
+        final Session session = new Session(activity, realTimeManager, speed);
+        session.callback = callback;
+        session.handler = new Handler(Looper.getMainLooper());
+        session.startTime = SystemClock.uptimeMillis();
+        runningSession = session;
+        session.handler.post(session);
+    }
+
+    /**
+     * Stops a replay started with {@link #start(Activity, float, Callback)}, clears its queue and
+     * reports what happened so far to its callback. Does nothing if no replay is running.
+     */
+    public void stop() {
+        final Session session = runningSession;
+        if (null == session) {
+            return;
+        }
+        runningSession = null;
+        session.handler.removeCallbacks(session);
+        final Report report = new Report(session);
+        session.manager.release();
+        session.callback.onReplayFinished(report);
+    }
+
+    private Style getStyle(int styleId) {
+        final Style style = styles.get(styleId);
+        if (null != style) {
+            return style;
+        }
+        if (null == defaultStyle) {
+            defaultStyle = new Style.Builder().build();
+        }
+        return defaultStyle;
+    }
+
+    /**
+     * The snackbars of one replay and what happened to them.
+     */
+    private final class Session implements Runnable {
+        final Activity activity;
+        final SnackbarManager manager;
+        final float speed;
+        final SparseArray<Tracked> active = new SparseArray<Tracked>();
+        long[] latencies = new long[16];
+        int latencyCount;
+        int enqueuedCount;
+        int droppedCount;
+        int cancelledCount;
+        long callNanos;
+        /**
+         * The main thread time the reused manager had spent before this session.
+         */
+        final long startWorkNanos;
+
+        Callback callback;
+        Handler handler;
+        long startTime;
+        int nextEvent;
+
+        Session(Activity activity, SnackbarManager manager, float speed) {
+            this.activity = activity;
+            this.manager = manager;
+            this.speed = speed;
+            manager.setWorkTimed(true);
+            startWorkNanos = manager.getWorkNanos();
+        }
+
+        /**
+         * Plays the events that are due in real time, then waits for the next one.
+         */
+        @Override
+        public void run() {
+            if (events.isEmpty()) {
+                finishIfDone();
+                return;
+            }
+            final long firstTime = events.get(0).time;
+            final long elapsed = SystemClock.uptimeMillis() - startTime;
+            while (nextEvent < events.size()) {
+                final Event event = events.get(nextEvent);
+                final long due = (long) ((event.time - firstTime) / speed);
+                if (due > elapsed) {
+                    handler.postDelayed(this, due - elapsed);
+                    return;
+                }
+                nextEvent++;
+                apply(event);
+            }
+            finishIfDone();
+        }
+
+        void apply(Event event) {
+            final long start = System.nanoTime();
+            switch (event.type) {
+                case SnackbarRecorder.EVENT_ENQUEUE: {
+                    show(event);
+                    break;
+                }
+                case SnackbarRecorder.EVENT_HIDE:
+                case SnackbarRecorder.EVENT_CANCEL: {
+                    final Tracked tracked = active.get(event.id);
+                    if (null == tracked) {
+                        break;
+                    }
+                    tracked.isRemovedByTrace = true;
+                    if (SnackbarRecorder.EVENT_HIDE == event.type) {
+                        tracked.snackbar.hide();
+                    } else {
+                        tracked.snackbar.cancel();
+                    }
+                    break;
+                }
+                default: {
+                    // Displays are the outcome of the recorded run, the replay makes its own.
+                    break;
+                }
+            }
+            callNanos += System.nanoTime() - start;
+        }
+
+        private void show(Event event) {
+            final char[] text = new char[event.textLength];
+            Arrays.fill(text, 'x');
+            final int duration = SnackBarConfiguration.DURATION_INFINITE == event.duration || 1 == speed
+                    ? event.duration : Math.max(1, (int) (event.duration / speed));
+            final SnackBarConfiguration configuration = new SnackBarConfiguration.Builder()
+                    .setDuration(duration)
+                    .setPriority(event.priority)
+                    .setShowMode(event.showMode)
+                    .build();
+            final TopSnackbar snackbar = TopSnackbar.makeText(activity, new String(text), getStyle(event.styleId))
+                    .setSnackBarConfiguration(configuration)
+                    .setTag(event.tag)
+                    .setKey(event.key)
+                    .setSnackbarManager(manager);
+            final Tracked tracked = new Tracked(event.id, snackbar, manager.getScheduler().uptimeMillis());
+            active.put(event.id, tracked);
+            snackbar.setLifecycleCallback(tracked);
+            snackbar.setOnReleasedListener(tracked);
+            enqueuedCount++;
+            snackbar.show();
+        }
+
+        void onDisplayed(Tracked tracked) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, 2 * latencyCount);
+            }
+            latencies[latencyCount++] = manager.getScheduler().uptimeMillis() - tracked.enqueueTime;
+        }
+
+        void onReleased(Tracked tracked) {
+            if (active.get(tracked.id) == tracked) {
+                active.remove(tracked.id);
+            }
+            if (!tracked.isDisplayed) {
+                if (tracked.isRemovedByTrace) {
+                    cancelledCount++;
+                } else {
+                    droppedCount++;
+                }
+            }
+            finishIfDone();
+        }
+
+        private void finishIfDone() {
+            if (this == runningSession && nextEvent == events.size() && 0 == active.size()) {
+                runningSession = null;
+                manager.release();
+                callback.onReplayFinished(new Report(this));
+            }
+        }
+
+        /**
+         * A replayed snackbar.
+         */
+        final class Tracked implements LifecycleCallback, SnackbarManager.OnReleasedListener {
+            final int id;
+            final TopSnackbar snackbar;
+            final long enqueueTime;
+            boolean isDisplayed;
+            boolean isRemovedByTrace;
+
+            Tracked(int id, TopSnackbar snackbar, long enqueueTime) {
+                this.id = id;
+                this.snackbar = snackbar;
+                this.enqueueTime = enqueueTime;
+            }
+
+            @Override
+            public void onDisplayed() {
+                // Called again when a snackbar is reattached after its activity has been re-created.
+                if (!isDisplayed) {
+                    isDisplayed = true;
+                    Session.this.onDisplayed(this);
+                }
+            }
+
+            @Override
+            public void onRemoved() {
+                /* no-op */
+            }
+
+            @Override
+            public void onReleased(TopSnackbar released) {
+                Session.this.onReleased(this);
+            }
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if (0 == (b & 0x80)) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed snackbar trace");
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        final int index = (int) readVarLong(in);
+        if (0 == index) {
+            return null;
+        }
+        if (index <= strings.size()) {
+            return strings.get(index - 1);
+        }
+        if (index != strings.size() + 1) {
+            throw new IOException("Malformed snackbar trace");
+        }
+        final String value = in.readUTF();
+        strings.add(value);
+        return value;
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.amitnadiger.customTopSnackbar;
+
+
+/**
+ * The clock and the delayed work queue a {@link SnackbarManager} runs on.
+ * <p>
+ * {@link LooperScheduler} runs on a {@link android.os.Looper} in real time. {@link VirtualTimeScheduler}
+ * only moves on when told to, so tests can run through display durations and animations instantly.
+ * </p>
+ * <p>
+ * Work is identified the way {@link android.os.Handler} messages are: by an id and an object.
+ * </p>
+ */
+public interface SnackbarScheduler {
+
+    interface Target {
+        /**
+         * Will be called on the scheduler's thread when scheduled work is due.
+         *
+         * @param what    The id of the work.
+         * @param obj     The object the work belongs to.
+         * @param arg1    The argument the work has been scheduled with.
+         * @param dueTime The {@link #uptimeMillis()} at which the work was due.
+         */
+        void onDue(int what, Object obj, int arg1, long dueTime);
+    }
+
+    /**
+     * Sets the target that runs the due work. Called once by the {@link SnackbarManager}.
+     */
+    void setTarget(Target target);
+
+    /**
+     * @return The current time in milliseconds. Only differences between two values are meaningful.
+     */
+    long uptimeMillis();
+
+    /**
+     * @return <code>true</code> if the calling thread is the scheduler's thread.
+     */
+    boolean isCurrentThread();
+
+    /**
+     * Schedules work to be handed to the {@link Target} after the given delay. Work due at the
+     * same time is run in the order it has been scheduled.
+     */
+    void schedule(int what, Object obj, int arg1, long delayInMilliseconds);
+
+    /**
+     * @param obj The object of the work, or <code>null</code> for any object.
+     * @return <code>true</code> if matching work is scheduled.
+     */
+    boolean isScheduled(int what, Object obj);
+
+    /**
+     * Cancels scheduled work.
+     *
+     * @param obj The object of the work, or <code>null</code> to cancel the work of all objects.
+     */
+    void cancel(int what, Object obj);
+}
@@ -0,0 +1,825 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Color;
+import android.view.Gravity;
+import android.view.ViewGroup.LayoutParams;
+import android.widget.ImageView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+
+/**
+ * Named {@link Style}s and {@link SnackBarConfiguration}s defined in a text file, e.g. an asset or
+ * a file downloaded through remote config.
+ * <p>
+ * The definitions are sections of <code>key = value</code> lines, lines starting with
+ * <code>#</code> are comments:
+ * </p>
+ * <pre>
+ * [alert]
+ * backgroundColor = #ffff4444
+ * textColor = &#64;android:color/white
+ * gravity = center_vertical|left
+ * padding = &#64;dimen/snackbar_padding
+ * duration = long
+ * displayMode = host_layout
+ * </pre>
+ * <p>
+ * When a source is loaded for the first time it is compiled into a binary snapshot that is
+ * cached on disk. Later loads of the same source memory-map the snapshot instead of parsing the
+ * text again. A snapshot that is truncated, corrupt or stale is detected by its length and
+ * checksum and compiled again. Resource references are resolved once per load. Looking up a name
+ * is a single hash lookup, each definition is decoded once on first use. Loading a source again
+ * replaces all definitions at once, concurrent lookups see either the old or the new definitions.
+ * Loading does disk I/O and should not be done on the main thread.
+ * </p>
+ */
+public final class SnackbarStyleRegistry {
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+    private static final String CACHE_FILE_PREFIX = "top_snackbar_styles_";
+    private static final int MAGIC = 0x54534231;
+    private static final int FORMAT_VERSION = 2;
+    /**
+     * The magic, the version, the source checksum, the body length and the body checksum.
+     */
+    private static final int HEADER_SIZE = 28;
+
+    private static final byte KIND_INT = 0;
+    private static final byte KIND_FLOAT = 1;
+    private static final byte KIND_STRING = 2;
+
+    private static final byte BACKGROUND_COLOR = 1;
+    private static final byte BACKGROUND_DRAWABLE = 2;
+    private static final byte TILE_ENABLED = 3;
+    private static final byte TEXT_COLOR = 4;
+    private static final byte HEIGHT = 5;
+    private static final byte WIDTH = 6;
+    private static final byte GRAVITY = 7;
+    private static final byte IMAGE = 8;
+    private static final byte IMAGE_SCALE_TYPE = 9;
+    private static final byte TEXT_SIZE = 10;
+    private static final byte TEXT_SHADOW_COLOR = 11;
+    private static final byte TEXT_SHADOW_RADIUS = 12;
+    private static final byte TEXT_SHADOW_DX = 13;
+    private static final byte TEXT_SHADOW_DY = 14;
+    private static final byte TEXT_APPEARANCE = 15;
+    private static final byte PADDING = 16;
+    private static final byte FONT_NAME = 17;
+    private static final byte DURATION = 32;
+    private static final byte IN_ANIMATION = 33;
+    private static final byte OUT_ANIMATION = 34;
+    private static final byte DISPLAY_MODE = 35;
+    private static final byte TIME_TO_LIVE = 36;
+    private static final byte PRIORITY = 37;
+    private static final byte MAX_IDLE_DEFERRAL = 38;
+    private static final byte FRAME_ALIGNED = 39;
+    private static final byte MAX_SCROLL_HOLD = 40;
+
+    private static final Map<String, Byte> KEYS = new HashMap<String, Byte>();
+
+    static {
+        KEYS.put("backgroundColor", BACKGROUND_COLOR);
+        KEYS.put("backgroundDrawable", BACKGROUND_DRAWABLE);
+        KEYS.put("tileEnabled", TILE_ENABLED);
+        KEYS.put("textColor", TEXT_COLOR);
+        KEYS.put("height", HEIGHT);
+        KEYS.put("width", WIDTH);
+        KEYS.put("gravity", GRAVITY);
+        KEYS.put("image", IMAGE);
+        KEYS.put("imageScaleType", IMAGE_SCALE_TYPE);
+        KEYS.put("textSize", TEXT_SIZE);
+        KEYS.put("textShadowColor", TEXT_SHADOW_COLOR);
+        KEYS.put("textShadowRadius", TEXT_SHADOW_RADIUS);
+        KEYS.put("textShadowDx", TEXT_SHADOW_DX);
+        KEYS.put("textShadowDy", TEXT_SHADOW_DY);
+        KEYS.put("textAppearance", TEXT_APPEARANCE);
+        KEYS.put("padding", PADDING);
+        KEYS.put("fontName", FONT_NAME);
+        KEYS.put("duration", DURATION);
+        KEYS.put("inAnimation", IN_ANIMATION);
+        KEYS.put("outAnimation", OUT_ANIMATION);
+        KEYS.put("displayMode", DISPLAY_MODE);
+        KEYS.put("timeToLive", TIME_TO_LIVE);
+        KEYS.put("priority", PRIORITY);
+        KEYS.put("maxIdleDeferral", MAX_IDLE_DEFERRAL);
+        KEYS.put("frameAligned", FRAME_ALIGNED);
+        KEYS.put("maxScrollHold", MAX_SCROLL_HOLD);
+    }
+
+    private static SnackbarStyleRegistry INSTANCE;
+
+    private volatile Snapshot snapshot;
+
+    private SnackbarStyleRegistry() {
+        /* no-op */
+    }
+
+    /**
+     * @return The registry shared by the whole application.
+     */
+    public static synchronized SnackbarStyleRegistry getInstance() {
+        if (null == INSTANCE) {
+            INSTANCE = new SnackbarStyleRegistry();
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Loads the definitions of an asset, replacing all previously loaded definitions.
+     *
+     * @param context   Used to open the asset, to cache the snapshot and to resolve resources.
+     * @param assetName The path of the asset.
+     * @throws IOException              If the asset or the cached snapshot could not be read.
+     * @throws IllegalArgumentException If the definitions are malformed.
+     */
+    public void loadFromAsset(Context context, String assetName) throws IOException {
+        if ((context == null) || (assetName == null)) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        load(context, "asset:" + assetName, readFully(context.getAssets().open(assetName)));
+    }
+
+    /**
+     * Loads the definitions of a local file, replacing all previously loaded definitions.
+     *
+     * @param context Used to cache the snapshot and to resolve resources.
+     * @param file    The file, e.g. downloaded through remote config.
+     * @throws IOException              If the file or the cached snapshot could not be read.
+     * @throws IllegalArgumentException If the definitions are malformed.
+     */
+    public void loadFromFile(Context context, File file) throws IOException {
+        if ((context == null) || (file == null)) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        load(context, "file:" + file.getAbsolutePath(), readFully(new FileInputStream(file)));
+    }
+
+    /**
+     * @param name The name of a section of the loaded definitions.
+     * @return The {@link Style} defined in the section, including its {@link SnackBarConfiguration},
+     * or <code>null</code> if there is no such section.
+     */
+    public Style getStyle(String name) {
+        final Snapshot current = snapshot;
+        return null != current ? current.getStyle(name) : null;
+    }
+
+    /**
+     * @param name The name of a section of the loaded definitions.
+     * @return The {@link SnackBarConfiguration} defined in the section, or <code>null</code> if
+     * there is no such section.
+     */
+    public SnackBarConfiguration getSnackBarConfiguration(String name) {
+        final Style style = getStyle(name);
+        return null != style ? style.snackBarConfiguration : null;
+    }
+
+    private void load(Context context, String sourceKey, byte[] source) throws IOException {
+        final Context applicationContext = context.getApplicationContext();
+        final CRC32 crc = new CRC32();
+        crc.update(source);
+        final long checksum = crc.getValue();
+        final File cacheFile = new File(applicationContext.getCacheDir(),
+                CACHE_FILE_PREFIX + Integer.toHexString(sourceKey.hashCode()) + ".bin");
+
+        final Resources resources = applicationContext.getResources();
+        final String packageName = applicationContext.getPackageName();
+        final ByteBuffer cached = cacheFile.exists() ? map(cacheFile) : null;
+        if (null != cached && isValidSnapshot(cached, checksum)) {
+            try {
+                snapshot = new Snapshot(resources, packageName, cached);
+                return;
+            } catch (IOException e) {
+                // Written by a faulty build, compile the text again.
+            }
+        }
+        final byte[] compiled = compile(resources, packageName, new String(source, "UTF-8"), checksum);
+        final File tempFile = new File(cacheFile.getPath() + ".tmp");
+        final FileOutputStream output = new FileOutputStream(tempFile);
+        try {
+            output.write(compiled);
+        } finally {
+            output.close();
+        }
+        final ByteBuffer buffer = tempFile.renameTo(cacheFile) ? map(cacheFile) : ByteBuffer.wrap(compiled);
+        snapshot = new Snapshot(resources, packageName, buffer);
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            // The mapping stays valid after the file has been closed.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the snapshot has been compiled from the source with the given
+     * checksum and its body is complete and intact.
+     */
+    private static boolean isValidSnapshot(ByteBuffer buffer, long checksum) {
+        if (buffer.capacity() < HEADER_SIZE || MAGIC != buffer.getInt(0) || FORMAT_VERSION != buffer.getInt(4)
+                || checksum != buffer.getLong(8) || buffer.capacity() - HEADER_SIZE != buffer.getInt(16)) {
+            return false;
+        }
+        final CRC32 crc = new CRC32();
+        final byte[] chunk = new byte[4096];
+        for (int position = HEADER_SIZE; position < buffer.capacity(); position += chunk.length) {
+            final int length = Math.min(chunk.length, buffer.capacity() - position);
+            for (int i = 0; i < length; i++) {
+                chunk[i] = buffer.get(position + i);
+            }
+            crc.update(chunk, 0, length);
+        }
+        return crc.getValue() == buffer.getLong(20);
+    }
+
+    private static byte[] readFully(InputStream input) throws IOException {
+        try {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[4096];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                output.write(chunk, 0, read);
+            }
+            return output.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////
+    // Compilation of the text format into a snapshot.
+    //////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Compiles the definitions into a snapshot: a header with the checksum of the source, the
+     * length and checksum of the body, followed by the body: the number of sections and each
+     * section's name and its properties as key, kind and value.
+     */
+    private static byte[] compile(Resources resources, String packageName, String source, long checksum)
+            throws IOException {
+        final Map<String, ByteArrayOutputStream> sections = new HashMap<String, ByteArrayOutputStream>();
+        final Map<String, Integer> propertyCounts = new HashMap<String, Integer>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final DataOutputStream bodyOutput = new DataOutputStream(body);
+
+        String section = null;
+        DataOutputStream sectionOutput = null;
+        final String[] lines = source.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            final String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                section = line.substring(1, line.length() - 1).trim();
+                if (section.isEmpty() || sections.containsKey(section)) {
+                    throw invalid(i, "duplicate or empty section name");
+                }
+                final ByteArrayOutputStream properties = new ByteArrayOutputStream();
+                sections.put(section, properties);
+                propertyCounts.put(section, 0);
+                sectionOutput = new DataOutputStream(properties);
+                continue;
+            }
+            final int separator = line.indexOf('=');
+            if (null == section || separator < 0) {
+                throw invalid(i, "expected a [section] or a key = value line");
+            }
+            final Byte key = KEYS.get(line.substring(0, separator).trim());
+            if (null == key) {
+                throw invalid(i, "unknown key");
+            }
+            compileProperty(resources, packageName, sectionOutput, key, line.substring(separator + 1).trim(), i);
+            propertyCounts.put(section, propertyCounts.get(section) + 1);
+        }
+
+        bodyOutput.writeInt(sections.size());
+        for (Map.Entry<String, ByteArrayOutputStream> entry : sections.entrySet()) {
+            writeString(bodyOutput, entry.getKey());
+            bodyOutput.writeInt(propertyCounts.get(entry.getKey()));
+            entry.getValue().writeTo(bodyOutput);
+        }
+        bodyOutput.flush();
+        final byte[] bodyBytes = body.toByteArray();
+        final CRC32 bodyCrc = new CRC32();
+        bodyCrc.update(bodyBytes);
+
+        final ByteArrayOutputStream snapshot = new ByteArrayOutputStream(HEADER_SIZE + bodyBytes.length);
+        final DataOutputStream snapshotOutput = new DataOutputStream(snapshot);
+        snapshotOutput.writeInt(MAGIC);
+        snapshotOutput.writeInt(FORMAT_VERSION);
+        snapshotOutput.writeLong(checksum);
+        snapshotOutput.writeInt(bodyBytes.length);
+        snapshotOutput.writeLong(bodyCrc.getValue());
+        snapshotOutput.write(bodyBytes);
+        snapshotOutput.flush();
+        return snapshot.toByteArray();
+    }
+
+    private static void compileProperty(Resources resources, String packageName, DataOutputStream output,
+                                        byte key, String value, int line) throws IOException {
+        output.writeByte(key);
+        try {
+            switch (key) {
+                case BACKGROUND_COLOR:
+                case TEXT_COLOR: {
+                    if (value.startsWith("@")) {
+                        writeResource(resources, packageName, output, value);
+                    } else {
+                        output.writeByte(KIND_INT);
+                        output.writeInt(Color.parseColor(value));
+                    }
+                    break;
+                }
+
+                case HEIGHT:
+                case WIDTH:
+                case PADDING: {
+                    if (value.startsWith("@")) {
+                        writeResource(resources, packageName, output, value);
+                    } else {
+                        output.writeByte(KIND_INT);
+                        output.writeInt("match_parent".equals(value) ? LayoutParams.MATCH_PARENT
+                                : "wrap_content".equals(value) ? LayoutParams.WRAP_CONTENT : Integer.parseInt(value));
+                    }
+                    break;
+                }
+
+                case BACKGROUND_DRAWABLE:
+                case IMAGE:
+                case TEXT_SHADOW_COLOR:
+                case TEXT_APPEARANCE:
+                case IN_ANIMATION:
+                case OUT_ANIMATION: {
+                    writeResource(resources, packageName, output, value);
+                    break;
+                }
+
+                case TEXT_SHADOW_RADIUS:
+                case TEXT_SHADOW_DX:
+                case TEXT_SHADOW_DY: {
+                    output.writeByte(KIND_FLOAT);
+                    output.writeFloat(Float.parseFloat(value));
+                    break;
+                }
+
+                case IMAGE_SCALE_TYPE: {
+                    output.writeByte(KIND_STRING);
+                    writeString(output, ImageView.ScaleType.valueOf(value.toUpperCase(Locale.US)).name());
+                    break;
+                }
+
+                case FONT_NAME: {
+                    output.writeByte(KIND_STRING);
+                    writeString(output, value);
+                    break;
+                }
+
+                default: {
+                    output.writeByte(KIND_INT);
+                    output.writeInt(parseInt(key, value));
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw invalid(line, "invalid value " + value);
+        }
+    }
+
+    private static int parseInt(byte key, String value) {
+        switch (key) {
+            case TILE_ENABLED:
+            case FRAME_ALIGNED: {
+                return Boolean.parseBoolean(value) ? 1 : 0;
+            }
+
+            case GRAVITY: {
+                int gravity = 0;
+                for (String flag : value.split("\\|")) {
+                    gravity |= parseGravity(flag.trim());
+                }
+                return gravity;
+            }
+
+            case DURATION: {
+                return "short".equals(value) ? SnackBarConfiguration.DURATION_SHORT
+                        : "long".equals(value) ? SnackBarConfiguration.DURATION_LONG
+                        : "infinite".equals(value) ? SnackBarConfiguration.DURATION_INFINITE : Integer.parseInt(value);
+            }
+
+            case TIME_TO_LIVE: {
+                return "infinite".equals(value) ? SnackBarConfiguration.TIME_TO_LIVE_INFINITE : Integer.parseInt(value);
+            }
+
+            case DISPLAY_MODE: {
+                if ("content".equals(value)) {
+                    return SnackBarConfiguration.DISPLAY_MODE_CONTENT;
+                } else if ("window".equals(value)) {
+                    return SnackBarConfiguration.DISPLAY_MODE_WINDOW;
+                } else if ("host_layout".equals(value)) {
+                    return SnackBarConfiguration.DISPLAY_MODE_HOST_LAYOUT;
+                }
+                throw new IllegalArgumentException(value);
+            }
+
+            case PRIORITY: {
+                return "low".equals(value) ? SnackBarConfiguration.PRIORITY_LOW
+                        : "normal".equals(value) ? SnackBarConfiguration.PRIORITY_NORMAL
+                        : "high".equals(value) ? SnackBarConfiguration.PRIORITY_HIGH : Integer.parseInt(value);
+            }
+
+            default: {
+                return Integer.parseInt(value);
+            }
+        }
+    }
+
+    private static int parseGravity(String flag) {
+        if ("top".equals(flag)) {
+            return Gravity.TOP;
+        } else if ("bottom".equals(flag)) {
+            return Gravity.BOTTOM;
+        } else if ("left".equals(flag)) {
+            return Gravity.LEFT;
+        } else if ("right".equals(flag)) {
+            return Gravity.RIGHT;
+        } else if ("start".equals(flag)) {
+            return Gravity.START;
+        } else if ("end".equals(flag)) {
+            return Gravity.END;
+        } else if ("center".equals(flag)) {
+            return Gravity.CENTER;
+        } else if ("center_vertical".equals(flag)) {
+            return Gravity.CENTER_VERTICAL;
+        } else if ("center_horizontal".equals(flag)) {
+            return Gravity.CENTER_HORIZONTAL;
+        }
+        throw new IllegalArgumentException(flag);
+    }
+
+    /**
+     * Writes a resource reference like <code>&#64;color/name</code> or
+     * <code>&#64;android:color/name</code>. References are kept by name, so a snapshot stays valid
+     * when resource ids change with a new build of the app.
+     */
+    private static void writeResource(Resources resources, String packageName, DataOutputStream output,
+                                      String reference) throws IOException {
+        if (0 == resolveResource(resources, packageName, reference)) {
+            throw new IllegalArgumentException(reference);
+        }
+        output.writeByte(KIND_STRING);
+        writeString(output, reference);
+    }
+
+    private static int resolveResource(Resources resources, String packageName, String reference) {
+        final int slash = reference.indexOf('/');
+        if (!reference.startsWith("@") || slash < 0) {
+            return 0;
+        }
+        String type = reference.substring(1, slash);
+        final int colon = type.indexOf(':');
+        if (colon >= 0) {
+            packageName = type.substring(0, colon);
+            type = type.substring(colon + 1);
+        }
+        return resources.getIdentifier(reference.substring(slash + 1), type, packageName);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        final byte[] bytes = value.getBytes("UTF-8");
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static IllegalArgumentException invalid(int line, String message) {
+        return new IllegalArgumentException("Invalid style definition at line " + (line + 1) + ": " + message);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////
+    // Lookup in a snapshot.
+    //////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * A loaded snapshot. It is never modified once created, which makes replacing it atomic.
+     */
+    private static final class Snapshot {
+        private final ByteBuffer buffer;
+        /**
+         * The offset of each section's properties within the buffer.
+         */
+        private final Map<String, Integer> offsets;
+        /**
+         * The id of each resource reference, resolved on load, 0 if it does not resolve.
+         */
+        private final Map<String, Integer> resourceIds = new HashMap<String, Integer>();
+        private final ConcurrentHashMap<String, Style> decoded = new ConcurrentHashMap<String, Style>();
+
+        /**
+         * Indexes the sections and resolves the resource references, checking every length
+         * against the size of the buffer.
+         *
+         * @throws IOException if the snapshot is malformed.
+         */
+        Snapshot(Resources resources, String packageName, ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            final int count = readInt(HEADER_SIZE);
+            if (count < 0) {
+                throw malformed();
+            }
+            this.offsets = new HashMap<String, Integer>(count * 2);
+            int position = HEADER_SIZE + 4;
+            for (int i = 0; i < count; i++) {
+                final int nameLength = readInt(position);
+                final String name = readString(position + 4, nameLength);
+                position += 4 + nameLength;
+                offsets.put(name, position);
+                position = indexProperties(resources, packageName, position);
+            }
+        }
+
+        Style getStyle(String name) {
+            Style style = decoded.get(name);
+            if (null == style) {
+                final Integer offset = offsets.get(name);
+                if (null == offset) {
+                    return null;
+                }
+                style = decode(offset);
+                decoded.put(name, style);
+            }
+            return style;
+        }
+
+        /**
+         * Walks the properties of a section, resolving its resource references.
+         *
+         * @return The position after the section.
+         */
+        private int indexProperties(Resources resources, String packageName, int position) throws IOException {
+            final int count = readInt(position);
+            position += 4;
+            for (int i = 0; i < count; i++) {
+                if (position + 2 > buffer.capacity()) {
+                    throw malformed();
+                }
+                final byte key = buffer.get(position);
+                final byte kind = buffer.get(position + 1);
+                final int value = readInt(position + 2);
+                position += 6;
+                if (KIND_STRING == kind) {
+                    final String string = readString(position, value);
+                    position += value;
+                    if (isResourceReference(key) && !resourceIds.containsKey(string)) {
+                        resourceIds.put(string, resolveResource(resources, packageName, string));
+                    }
+                }
+            }
+            return position;
+        }
+
+        private Style decode(int position) {
+            final Style.Builder style = new Style.Builder();
+            final SnackBarConfiguration.Builder configuration = new SnackBarConfiguration.Builder();
+            final int count = buffer.getInt(position);
+            position += 4;
+            for (int i = 0; i < count; i++) {
+                final byte key = buffer.get(position);
+                final byte kind = buffer.get(position + 1);
+                position += 2;
+                final int value = buffer.getInt(position);
+                position += 4;
+                String string = null;
+                int resId = 0;
+                if (KIND_STRING == kind) {
+                    string = decodeString(position, value);
+                    position += value;
+                    if (isResourceReference(key)) {
+                        resId = resourceIds.get(string);
+                    }
+                }
+                applyProperty(style, configuration, key, kind, value, string, resId);
+            }
+            return style.setSnackBarConfiguration(configuration.build()).build();
+        }
+
+        private int readInt(int position) throws IOException {
+            if (position < 0 || position + 4 > buffer.capacity()) {
+                throw malformed();
+            }
+            return buffer.getInt(position);
+        }
+
+        private String readString(int position, int length) throws IOException {
+            if (length < 0 || position + length > buffer.capacity()) {
+                throw malformed();
+            }
+            return decodeString(position, length);
+        }
+
+        private String decodeString(int position, int length) {
+            final byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(position + i);
+            }
+            try {
+                return new String(bytes, "UTF-8");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static boolean isResourceReference(byte key) {
+            return IMAGE_SCALE_TYPE != key && FONT_NAME != key;
+        }
+
+        private static IOException malformed() {
+            return new IOException("Malformed style snapshot");
+        }
+
+        /**
+         * Applies a decoded property. Resource references that no longer resolve are skipped.
+         */
+        private static void applyProperty(Style.Builder style, SnackBarConfiguration.Builder configuration,
+                                          byte key, byte kind, int value, String string, int resId) {
+            if (KIND_STRING == kind && 0 == resId && isResourceReference(key)) {
+                return;
+            }
+            switch (key) {
+                case BACKGROUND_COLOR: {
+                    if (KIND_STRING == kind) {
+                        style.setBackgroundColor(resId);
+                    } else {
+                        style.setBackgroundColorValue(value);
+                    }
+                    break;
+                }
+
+                case TEXT_COLOR: {
+                    if (KIND_STRING == kind) {
+                        style.setTextColor(resId);
+                    } else {
+                        style.setTextColorValue(value);
+                    }
+                    break;
+                }
+
+                case HEIGHT: {
+                    if (KIND_STRING == kind) {
+                        style.setHeightDimensionResId(resId);
+                    } else {
+                        style.setHeight(value);
+                    }
+                    break;
+                }
+
+                case WIDTH: {
+                    if (KIND_STRING == kind) {
+                        style.setWidthDimensionResId(resId);
+                    } else {
+                        style.setWidth(value);
+                    }
+                    break;
+                }
+
+                case PADDING: {
+                    if (KIND_STRING == kind) {
+                        style.setPaddingDimensionResId(resId);
+                    } else {
+                        style.setPaddingInPixels(value);
+                    }
+                    break;
+                }
+
+                case BACKGROUND_DRAWABLE: {
+                    style.setBackgroundDrawable(resId);
+                    break;
+                }
+
+                case IMAGE: {
+                    style.setImageResource(resId);
+                    break;
+                }
+
+                case TEXT_SHADOW_COLOR: {
+                    style.setTextShadowColor(resId);
+                    break;
+                }
+
+                case TEXT_APPEARANCE: {
+                    style.setTextAppearance(resId);
+                    break;
+                }
+
+                case IN_ANIMATION: {
+                    configuration.setInAnimation(resId);
+                    break;
+                }
+
+                case OUT_ANIMATION: {
+                    configuration.setOutAnimation(resId);
+                    break;
+                }
+
+                case TILE_ENABLED: {
+                    style.setTileEnabled(0 != value);
+                    break;
+                }
+
+                case GRAVITY: {
+                    style.setGravity(value);
+                    break;
+                }
+
+                case IMAGE_SCALE_TYPE: {
+                    style.setImageScaleType(ImageView.ScaleType.valueOf(string));
+                    break;
+                }
+
+                case TEXT_SIZE: {
+                    style.setTextSize(value);
+                    break;
+                }
+
+                case TEXT_SHADOW_RADIUS: {
+                    style.setTextShadowRadius(Float.intBitsToFloat(value));
+                    break;
+                }
+
+                case TEXT_SHADOW_DX: {
+                    style.setTextShadowDx(Float.intBitsToFloat(value));
+                    break;
+                }
+
+                case TEXT_SHADOW_DY: {
+                    style.setTextShadowDy(Float.intBitsToFloat(value));
+                    break;
+                }
+
+                case FONT_NAME: {
+                    style.setFontName(string);
+                    break;
+                }
+
+                case DURATION: {
+                    configuration.setDuration(value);
+                    break;
+                }
+
+                case DISPLAY_MODE: {
+                    configuration.setDisplayMode(value);
+                    break;
+                }
+
+                case TIME_TO_LIVE: {
+                    configuration.setTimeToLive(value);
+                    break;
+                }
+
+                case PRIORITY: {
+                    configuration.setPriority(value);
+                    break;
+                }
+
+                case MAX_IDLE_DEFERRAL: {
+                    configuration.setMaxIdleDeferral(value);
+                    break;
+                }
+
+                case FRAME_ALIGNED: {
+                    configuration.setFrameAligned(0 != value);
+                    break;
+                }
+
+                case MAX_SCROLL_HOLD: {
+                    configuration.setMaxScrollHold(value);
+                    break;
+                }
+
+                default: {
+                    break;
+                }
+            }
+        }
+    }
+}
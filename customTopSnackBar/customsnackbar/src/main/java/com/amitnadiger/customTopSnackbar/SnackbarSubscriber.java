@@ -0,0 +1,247 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+
+
+/**
+ * Binds a stream of items to an {@link Activity}, turning each item into a {@link TopSnackbar}.
+ * <p>
+ * At most one snackbar of a subscriber is handed to the {@link SnackbarManager} at a time, and a
+ * new item is only requested from the {@link SnackbarFlow.Subscription} once that snackbar has
+ * left the manager. Items pushed beyond that demand, e.g. by a plain listener calling
+ * {@link #onNext(Object)} directly, are handled according to the backpressure strategy.
+ * </p>
+ * <p>
+ * {@link #onNext(Object)} may be called from any thread. Snackbars are created and shown on the
+ * main thread.
+ * </p>
+ */
+public final class SnackbarSubscriber<T> implements SnackbarFlow.Subscriber<T> {
+    private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
+
+    /**
+     * When the buffer is full, newly pushed items are dropped.
+     */
+    public static final int STRATEGY_DROP_NEWEST = 0;
+    /**
+     * When the buffer is full, the oldest buffered item is dropped to make room.
+     */
+    public static final int STRATEGY_DROP_OLDEST = 1;
+    /**
+     * Only the latest pushed item is kept, the buffer size is ignored.
+     */
+    public static final int STRATEGY_KEEP_LATEST = 2;
+    /**
+     * Up to buffer size items are kept. Overflowing the buffer cancels the subscription.
+     */
+    public static final int STRATEGY_BUFFER = 3;
+
+    /**
+     * Creates the {@link TopSnackbar} displayed for an item.
+     */
+    public interface Factory<T> {
+        TopSnackbar create(Activity activity, T item);
+    }
+
+    private final WeakReference<Activity> activityReference;
+    private final Factory<T> factory;
+    private final int strategy;
+    private final int bufferSize;
+    private final ArrayDeque<T> buffer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+    private final SnackbarManager.OnReleasedListener releasedListener = new SnackbarManager.OnReleasedListener() {
+        @Override
+        public void onReleased(TopSnackbar snackbar) {
+            onSnackbarReleased(snackbar);
+        }
+    };
+
+    private SnackbarFlow.Subscription subscription;
+    private TopSnackbar inFlight;
+    private boolean isDrainPending;
+    private boolean isCancelled;
+    private long droppedCount;
+
+    /**
+     * Creates a subscriber for the given activity.
+     *
+     * @param activity   The Activity the snackbars should be shown in.
+     * @param factory    Creates the snackbar for each item.
+     * @param strategy   One of the <code>STRATEGY_*</code> constants.
+     * @param bufferSize The number of items kept while a snackbar of this subscriber is pending.
+     */
+    public SnackbarSubscriber(Activity activity, Factory<T> factory, int strategy, int bufferSize) {
+        if ((activity == null) || (factory == null)) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        if (bufferSize < 1 && STRATEGY_KEEP_LATEST != strategy) {
+            throw new IllegalArgumentException("bufferSize must be at least 1");
+        }
+        this.activityReference = new WeakReference<Activity>(activity);
+        this.factory = factory;
+        this.strategy = strategy;
+        this.bufferSize = STRATEGY_KEEP_LATEST == strategy ? 1 : bufferSize;
+        this.buffer = new ArrayDeque<T>(this.bufferSize);
+    }
+
+    /**
+     * Creates a subscriber for the given activity and subscribes it to the publisher.
+     *
+     * @return The subscriber, which can be used to cancel the binding.
+     */
+    public static <T> SnackbarSubscriber<T> bind(Activity activity, SnackbarFlow.Publisher<T> publisher,
+                                                 Factory<T> factory, int strategy, int bufferSize) {
+        final SnackbarSubscriber<T> subscriber = new SnackbarSubscriber<T>(activity, factory, strategy, bufferSize);
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Override
+    public void onSubscribe(SnackbarFlow.Subscription subscription) {
+        synchronized (buffer) {
+            if (null != this.subscription || isCancelled) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(T item) {
+        boolean overflowed = false;
+        synchronized (buffer) {
+            if (isCancelled || null == item) {
+                return;
+            }
+            if (buffer.size() < bufferSize) {
+                buffer.addLast(item);
+            } else if (STRATEGY_DROP_NEWEST == strategy) {
+                droppedCount++;
+            } else if (STRATEGY_DROP_OLDEST == strategy || STRATEGY_KEEP_LATEST == strategy) {
+                buffer.pollFirst();
+                buffer.addLast(item);
+                droppedCount++;
+            } else {
+                droppedCount++;
+                overflowed = true;
+            }
+            if (!isDrainPending && !overflowed) {
+                isDrainPending = true;
+                mainHandler.post(drainRunnable);
+            }
+        }
+        if (overflowed) {
+            cancel();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        // Items that are already buffered are still displayed.
+        synchronized (buffer) {
+            subscription = null;
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        // Items that are already buffered are still displayed.
+        synchronized (buffer) {
+            subscription = null;
+        }
+    }
+
+    /**
+     * Cancels the subscription and drops all buffered items. A snackbar that has already been
+     * handed to the {@link SnackbarManager} is not affected.
+     */
+    public void cancel() {
+        final SnackbarFlow.Subscription cancelled;
+        synchronized (buffer) {
+            isCancelled = true;
+            buffer.clear();
+            cancelled = subscription;
+            subscription = null;
+        }
+        mainHandler.removeCallbacks(drainRunnable);
+        if (null != cancelled) {
+            cancelled.cancel();
+        }
+    }
+
+    /**
+     * @return The number of items dropped by the backpressure strategy so far.
+     */
+    public long getDroppedCount() {
+        synchronized (buffer) {
+            return droppedCount;
+        }
+    }
+
+    private void onSnackbarReleased(TopSnackbar snackbar) {
+        if (null == snackbar || snackbar != inFlight) {
+            return;
+        }
+        inFlight = null;
+        onSlotFreed();
+    }
+
+    /**
+     * Requests the next item and schedules the display of a buffered one.
+     */
+    private void onSlotFreed() {
+        final SnackbarFlow.Subscription current;
+        synchronized (buffer) {
+            current = subscription;
+            if (!isDrainPending && !buffer.isEmpty()) {
+                isDrainPending = true;
+                mainHandler.post(drainRunnable);
+            }
+        }
+        if (null != current) {
+            current.request(1);
+        }
+    }
+
+    /**
+     * Hands the next buffered item to the {@link SnackbarManager} if none of this subscriber's
+     * snackbars is pending. Runs on the main thread.
+     */
+    private void drain() {
+        final T item;
+        synchronized (buffer) {
+            isDrainPending = false;
+            if (null != inFlight || buffer.isEmpty()) {
+                return;
+            }
+            item = buffer.pollFirst();
+        }
+        final Activity activity = activityReference.get();
+        if (null == activity || activity.isFinishing()) {
+            cancel();
+            return;
+        }
+        final TopSnackbar snackbar = factory.create(activity, item);
+        if (null == snackbar || snackbar.isInManager()) {
+            // The manager rejects a snackbar it already holds without releasing it.
+            onSlotFreed();
+            return;
+        }
+        inFlight = snackbar;
+        snackbar.setOnReleasedListener(releasedListener);
+        snackbar.show();
+    }
+}
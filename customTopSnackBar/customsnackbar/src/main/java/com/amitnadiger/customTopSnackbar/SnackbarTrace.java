@@ -0,0 +1,147 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * Optional systrace / Perfetto sections for the work done for a {@link TopSnackbar}. Sections are
+ * named after the stage and the snackbar's tag, e.g. <code>TopSnackbar attach: upload-done</code>.
+ * <p>
+ * Tracing is off by default. While it and the {@link SnackbarWatchdog} are off, each call is two
+ * static field checks and no section name is built.
+ * </p>
+ * <p>
+ * Animations and the time a snackbar is visible are recorded as async slices. Those are public
+ * API from Android 10 on only, so they are looked up once when tracing is enabled and skipped on
+ * older versions.
+ * </p>
+ */
+final class SnackbarTrace {
+    static final String ENQUEUE = "enqueue";
+    static final String RESOLVE_RESOURCES = "resolve resources";
+    static final String BUILD_VIEW = "build view";
+    static final String MEASURE = "measure";
+    static final String PRERENDER = "prerender";
+    static final String ATTACH = "attach";
+    static final String IN_ANIMATION = "in animation";
+    static final String OUT_ANIMATION = "out animation";
+    static final String VISIBLE = "visible";
+    static final String REMOVE = "remove";
+
+    static final String CALLBACK = "callback";
+
+    private static final String SECTION_PREFIX = "TopSnackbar ";
+    /**
+     * The section returned for a stage that is traced, but not timed.
+     */
+    private static final Object TRACED_SECTION = new Object();
+    /**
+     * The maximum length of a section name accepted by {@link Trace}.
+     */
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    private static boolean sIsEnabled;
+    private static Method sBeginAsyncSection;
+    private static Method sEndAsyncSection;
+    private static Handler sHandler;
+
+    private SnackbarTrace() {
+        /* no-op */
+    }
+
+    static void setEnabled(boolean isEnabled) {
+        if (isEnabled && null == sBeginAsyncSection && Build.VERSION.SDK_INT >= 29) {
+            try {
+                sBeginAsyncSection = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                sEndAsyncSection = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+            } catch (NoSuchMethodException e) {
+                sBeginAsyncSection = null;
+                sEndAsyncSection = null;
+            }
+        }
+        sIsEnabled = isEnabled;
+    }
+
+    /**
+     * Begins a section on the current thread. The stage is timed as well if the
+     * {@link SnackbarWatchdog} is enabled.
+     *
+     * @return The section to be passed to {@link #endSection(Object)}, <code>null</code> if
+     * neither tracing nor the watchdog is enabled.
+     */
+    static Object beginSection(String stage, TopSnackbar snackbar) {
+        if (!sIsEnabled && !SnackbarWatchdog.isEnabled()) {
+            return null;
+        }
+        final boolean isTraced = sIsEnabled;
+        if (isTraced) {
+            Trace.beginSection(getSectionName(stage, snackbar));
+        }
+        return SnackbarWatchdog.isEnabled() ? SnackbarWatchdog.beginStage(stage, snackbar, isTraced) : TRACED_SECTION;
+    }
+
+    static void endSection(Object section) {
+        if (null == section) {
+            return;
+        }
+        if (TRACED_SECTION == section) {
+            Trace.endSection();
+            return;
+        }
+        final SnackbarWatchdog.Stage stage = (SnackbarWatchdog.Stage) section;
+        if (stage.isTraced) {
+            Trace.endSection();
+        }
+        SnackbarWatchdog.endStage(stage);
+    }
+
+    static void beginAsyncSection(String stage, TopSnackbar snackbar) {
+        if (sIsEnabled && null != sBeginAsyncSection) {
+            invoke(sBeginAsyncSection, getSectionName(stage, snackbar), System.identityHashCode(snackbar));
+        }
+    }
+
+    static void endAsyncSection(String stage, TopSnackbar snackbar) {
+        if (sIsEnabled && null != sEndAsyncSection) {
+            invoke(sEndAsyncSection, getSectionName(stage, snackbar), System.identityHashCode(snackbar));
+        }
+    }
+
+    /**
+     * Records an async slice for an animation that has just been started. The slice is ended in
+     * real time, animations run on the main thread's clock whatever the manager's scheduler is.
+     */
+    static void traceAnimation(final String stage, final TopSnackbar snackbar, long duration) {
+        if (!sIsEnabled || null == sBeginAsyncSection) {
+            return;
+        }
+        beginAsyncSection(stage, snackbar);
+        if (null == sHandler) {
+            sHandler = new Handler(Looper.getMainLooper());
+        }
+        sHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                endAsyncSection(stage, snackbar);
+            }
+        }, duration);
+    }
+
+    private static String getSectionName(String stage, TopSnackbar snackbar) {
+        final String name = SECTION_PREFIX + stage + ": " + snackbar.getTag();
+        return name.length() > MAX_SECTION_NAME_LENGTH ? name.substring(0, MAX_SECTION_NAME_LENGTH) : name;
+    }
+
+    private static void invoke(Method method, String name, int cookie) {
+        try {
+            method.invoke(null, name, cookie);
+        } catch (Exception e) {
+            // Tracing must never break displaying the snackbar.
+        }
+    }
+}
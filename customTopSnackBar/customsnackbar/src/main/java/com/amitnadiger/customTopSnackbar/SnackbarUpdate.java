@@ -0,0 +1,90 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.graphics.drawable.Drawable;
+
+
+/**
+ * New content for a queued or displayed {@link TopSnackbar}, applied with
+ * {@link TopSnackbar#update(SnackbarUpdate)}. Only what has been set is changed.
+ */
+public class SnackbarUpdate {
+    final CharSequence text;
+    final Style style;
+    final Drawable imageDrawable;
+    final int imageResId;
+    final boolean isDismissalTimerReset;
+
+    private SnackbarUpdate(Builder builder) {
+        this.text = builder.text;
+        this.style = builder.style;
+        this.imageDrawable = builder.imageDrawable;
+        this.imageResId = builder.imageResId;
+        this.isDismissalTimerReset = builder.isDismissalTimerReset;
+    }
+
+    @Override
+    public String toString() {
+        return "SnackbarUpdate{" +
+                "text=" + text +
+                ", style=" + style +
+                ", imageDrawable=" + imageDrawable +
+                ", imageResId=" + imageResId +
+                ", isDismissalTimerReset=" + isDismissalTimerReset +
+                '}';
+    }
+
+    public static class Builder {
+        private CharSequence text;
+        private Style style;
+        private Drawable imageDrawable;
+        private int imageResId;
+        private boolean isDismissalTimerReset;
+
+        /**
+         * Sets the new text.
+         */
+        public Builder setText(CharSequence text) {
+            this.text = text;
+            return this;
+        }
+
+        /**
+         * Sets the new {@link Style}. The {@link SnackBarConfiguration} of a displayed snackbar,
+         * e.g. its duration, is kept.
+         */
+        public Builder setStyle(Style style) {
+            this.style = style;
+            return this;
+        }
+
+        /**
+         * Sets the new icon, replacing the one of the {@link Style}.
+         */
+        public Builder setImageDrawable(Drawable imageDrawable) {
+            this.imageDrawable = imageDrawable;
+            return this;
+        }
+
+        /**
+         * Sets the resource of the new icon, replacing the one of the {@link Style}. This will
+         * overwrite an icon drawable if both are set.
+         */
+        public Builder setImageResource(int imageResId) {
+            this.imageResId = imageResId;
+            return this;
+        }
+
+        /**
+         * Sets whether a displayed snackbar is shown for its full duration again from the update
+         * on. Default is <code>false</code>.
+         */
+        public Builder setDismissalTimerReset(boolean isDismissalTimerReset) {
+            this.isDismissalTimerReset = isDismissalTimerReset;
+            return this;
+        }
+
+        public SnackbarUpdate build() {
+            return new SnackbarUpdate(this);
+        }
+    }
+}
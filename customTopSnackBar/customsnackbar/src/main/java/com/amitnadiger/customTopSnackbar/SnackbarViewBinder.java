@@ -0,0 +1,33 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.content.Context;
+import android.view.View;
+
+
+/**
+ * Creates and binds the custom view of one type of snackbar. Views of snackbars that have been
+ * removed are kept in a pool per activity and binder, and are bound again for the next snackbar
+ * of the same type instead of creating new ones.
+ *
+ * @param <V> The type of the view.
+ * @param <T> The type of the data shown by the view.
+ * @see TopSnackbar#make(android.app.Activity, SnackbarViewBinder, Object)
+ */
+public interface SnackbarViewBinder<V extends View, T> {
+    /**
+     * Will be called when no pooled view is available.
+     *
+     * @param context The activity the snackbar is displayed in.
+     * @return A new view.
+     */
+    V createView(Context context);
+
+    /**
+     * Will be called right before the view is displayed, for new and pooled views alike. Must set
+     * everything the data of a previous snackbar may have changed.
+     *
+     * @param view The view to show the data in.
+     * @param data The data of the snackbar.
+     */
+    void bind(V view, T data);
+}
@@ -0,0 +1,81 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Keeps the detached views of removed snackbars, per type, so the next snackbar of the same type
+ * can reuse one. The type of a custom view is its {@link SnackbarViewBinder}, views built by
+ * {@link TopSnackbar} itself share one type.
+ * <p>
+ * One pool is created per activity and kept with its decor view, so pooled views never outlive
+ * the activity they have been created with.
+ * </p>
+ */
+final class SnackbarViewPool {
+    /**
+     * The maximum number of views kept per type: enough for the displayed snackbar, one
+     * prepared ahead and one leaving.
+     */
+    static final int MAX_VIEWS_PER_TYPE = 3;
+
+    private final Map<Object, List<View>> views = new HashMap<Object, List<View>>();
+
+    private SnackbarViewPool() {
+        /* no-op */
+    }
+
+    /**
+     * Returns the pool of the given {@link Activity}, creating it the first time it is requested.
+     *
+     * @param activity The {@link Activity} whose views are pooled.
+     * @return The pool, or <code>null</code> if the activity has no decor view yet.
+     */
+    static SnackbarViewPool obtain(Activity activity) {
+        final View decorView = activity.getWindow().peekDecorView();
+        if (null == decorView) {
+            return null;
+        }
+        final Object tag = decorView.getTag(R.id.top_snackbar_view_pool);
+        if (tag instanceof SnackbarViewPool) {
+            return (SnackbarViewPool) tag;
+        }
+        final SnackbarViewPool pool = new SnackbarViewPool();
+        decorView.setTag(R.id.top_snackbar_view_pool, pool);
+        return pool;
+    }
+
+    /**
+     * @param type The type of the view, e.g. its {@link SnackbarViewBinder}.
+     * @return A pooled view of the type, or <code>null</code> if there is none.
+     */
+    View acquire(Object type) {
+        final List<View> pooled = views.get(type);
+        if (null == pooled || pooled.isEmpty()) {
+            return null;
+        }
+        return pooled.remove(pooled.size() - 1);
+    }
+
+    /**
+     * Keeps a detached view for reuse, unless its type already has enough pooled views. The view
+     * must have finished its out animation, its former parent must no longer draw it.
+     */
+    void release(Object type, View view) {
+        List<View> pooled = views.get(type);
+        if (null == pooled) {
+            pooled = new ArrayList<View>(MAX_VIEWS_PER_TYPE);
+            views.put(type, pooled);
+        }
+        if (pooled.size() < MAX_VIEWS_PER_TYPE && !pooled.contains(view)) {
+            view.clearAnimation();
+            pooled.add(view);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+
+/**
+ * Debug watchdog timing the main thread stages of each {@link TopSnackbar}.
+ * <p>
+ * Stages are the ones recorded by {@link SnackbarTrace}. When a stage is still running once its
+ * budget has passed, a sampling thread takes a snapshot of the running thread's stack, so the
+ * report points at the slow code, e.g. a heavy custom view or a slow {@link LifecycleCallback}.
+ * Reports go to the {@link SnackbarWatchdogListener}, or to the log if there is none.
+ * </p>
+ */
+final class SnackbarWatchdog {
+    private static final String TAG = "SnackbarWatchdog";
+
+    private static volatile boolean sIsEnabled;
+    private static long sBudgetInMilliseconds;
+    private static SnackbarWatchdogListener sListener;
+    private static Handler sSamplerHandler;
+
+    private SnackbarWatchdog() {
+        /* no-op */
+    }
+
+    static synchronized void enable(long budgetInMilliseconds, SnackbarWatchdogListener listener) {
+        if (null == sSamplerHandler) {
+            final HandlerThread samplerThread = new HandlerThread(TAG);
+            samplerThread.start();
+            sSamplerHandler = new Handler(samplerThread.getLooper());
+        }
+        sBudgetInMilliseconds = budgetInMilliseconds;
+        sListener = listener;
+        sIsEnabled = true;
+    }
+
+    static synchronized void disable() {
+        sIsEnabled = false;
+        sListener = null;
+    }
+
+    static boolean isEnabled() {
+        return sIsEnabled;
+    }
+
+    /**
+     * Starts timing a stage on the current thread.
+     *
+     * @param isTraced Whether a trace section has been begun for the stage as well.
+     */
+    static Stage beginStage(String name, TopSnackbar snackbar, boolean isTraced) {
+        final Stage stage = new Stage(name, snackbar, isTraced, sBudgetInMilliseconds);
+        sSamplerHandler.postDelayed(stage, stage.budgetInMilliseconds);
+        return stage;
+    }
+
+    static void endStage(Stage stage) {
+        stage.isFinished = true;
+        sSamplerHandler.removeCallbacks(stage);
+        final long duration = SystemClock.uptimeMillis() - stage.startTime;
+        if (duration <= stage.budgetInMilliseconds || !sIsEnabled) {
+            return;
+        }
+        final StackTraceElement[] stackSnapshot = null != stage.stackSnapshot
+                ? stage.stackSnapshot : Thread.currentThread().getStackTrace();
+        final SnackbarWatchdogListener listener = sListener;
+        if (null != listener) {
+            listener.onBudgetExceeded(stage.snackbar.getTag(), stage.snackbar.getStyle(), stage.name, duration,
+                    stackSnapshot);
+        } else {
+            Log.w(TAG, "Stage \"" + stage.name + "\" of " + stage.snackbar.getTag() + " took " + duration
+                    + " ms, budget is " + stage.budgetInMilliseconds + " ms", asThrowable(stackSnapshot));
+        }
+    }
+
+    /**
+     * Reports a {@link TopSnackbar} shown from a thread other than the main thread.
+     */
+    static void checkMainThread(TopSnackbar snackbar) {
+        if (!sIsEnabled || Looper.myLooper() == Looper.getMainLooper()) {
+            return;
+        }
+        final StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+        final SnackbarWatchdogListener listener = sListener;
+        if (null != listener) {
+            listener.onShownOffMainThread(snackbar.getTag(), snackbar.getStyle(), stackTrace);
+        } else {
+            Log.w(TAG, snackbar.getTag() + " shown off the main thread on " + Thread.currentThread().getName(),
+                    asThrowable(stackTrace));
+        }
+    }
+
+    private static Throwable asThrowable(StackTraceElement[] stackTrace) {
+        final Throwable throwable = new Throwable("stack snapshot");
+        throwable.setStackTrace(stackTrace);
+        return throwable;
+    }
+
+    /**
+     * A running stage. Posted to the sampling thread, it samples the stack of the thread running
+     * the stage if the stage has not finished within its budget.
+     */
+    static final class Stage implements Runnable {
+        final String name;
+        final TopSnackbar snackbar;
+        final boolean isTraced;
+        final long budgetInMilliseconds;
+        final long startTime = SystemClock.uptimeMillis();
+        private final Thread thread = Thread.currentThread();
+        private volatile boolean isFinished;
+        private volatile StackTraceElement[] stackSnapshot;
+
+        Stage(String name, TopSnackbar snackbar, boolean isTraced, long budgetInMilliseconds) {
+            this.name = name;
+            this.snackbar = snackbar;
+            this.isTraced = isTraced;
+            this.budgetInMilliseconds = budgetInMilliseconds;
+        }
+
+        @Override
+        public void run() {
+            if (!isFinished) {
+                stackSnapshot = thread.getStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.amitnadiger.customTopSnackbar;
+
+
+public interface SnackbarWatchdogListener {
+    /**
+     * Will be called on the main thread when a stage of a snackbar took longer than the budget.
+     *
+     * @param tag                   The tag of the snackbar.
+     * @param style                 The style of the snackbar.
+     * @param stage                 The stage, e.g. "build view", "measure", "attach" or "callback".
+     * @param durationInMilliseconds How long the stage took.
+     * @param stackSnapshot         The main thread's stack sampled while the stage was over budget,
+     *                              or the stack at the end of the stage if it could not be sampled.
+     */
+    void onBudgetExceeded(String tag, Style style, String stage, long durationInMilliseconds,
+                          StackTraceElement[] stackSnapshot);
+
+    /**
+     * Will be called when a snackbar is shown from a thread other than the main thread.
+     *
+     * @param tag        The tag of the snackbar.
+     * @param style      The style of the snackbar.
+     * @param stackTrace The stack of the calling thread.
+     */
+    void onShownOffMainThread(String tag, Style style, StackTraceElement[] stackTrace);
+}
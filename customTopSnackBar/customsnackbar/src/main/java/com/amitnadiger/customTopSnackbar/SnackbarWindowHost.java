@@ -0,0 +1,106 @@
+package com.amitnadiger.customTopSnackbar;
+
+import android.app.Activity;
+import android.graphics.PixelFormat;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+
+
+/**
+ * Displays {@link TopSnackbar} views in their own application sub-window, attached to the
+ * window token of the hosting {@link Activity}. Adding or removing such a window never
+ * requests a layout pass of the activity's view hierarchy.
+ * <p>
+ * The snackbar view is the child of a container that is the root of the window, as the animation
+ * of a view is only applied by its parent. The window is as large as the view, so the view slides
+ * in and out at the window's top edge, the way it does at the top of the content view.
+ * </p>
+ */
+final class SnackbarWindowHost {
+    private static final String TAG = "SnackbarWindowHost";
+
+    private SnackbarWindowHost() {
+        /* no-op */
+    }
+
+    /**
+     * Adds the snackbar view as a panel window on top of the given anchor view, sized like the
+     * view's layout params: the anchor's width unless a width is set, and the height set.
+     *
+     * @param activity     The {@link Activity} whose window token the panel is attached to.
+     * @param anchor       The view whose top left corner the panel should be aligned with.
+     * @param snackbarView The view to display.
+     * @param topMargin    Additional offset from the anchor's top, e.g. for an overlaid action bar.
+     * @return <code>true</code> if the window has been added, <code>false</code> if the activity
+     * window is not attached yet and the caller should fall back to the view hierarchy.
+     */
+    static boolean addView(Activity activity, View anchor, View snackbarView, int topMargin) {
+        if (null == activity || activity.isFinishing() || null == anchor) {
+            return false;
+        }
+        final View decorView = activity.getWindow().peekDecorView();
+        if (null == decorView || null == decorView.getWindowToken()) {
+            return false;
+        }
+
+        int width = anchor.getWidth();
+        int height = ViewGroup.LayoutParams.WRAP_CONTENT;
+        final ViewGroup.LayoutParams snackbarParams = snackbarView.getLayoutParams();
+        if (null != snackbarParams) {
+            if (snackbarParams.width > 0) {
+                width = snackbarParams.width;
+            }
+            height = snackbarParams.height;
+            if (snackbarParams instanceof ViewGroup.MarginLayoutParams) {
+                // The offset is applied to the window instead.
+                ((ViewGroup.MarginLayoutParams) snackbarParams).setMargins(0, 0, 0, 0);
+            }
+        }
+
+        final WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                width > 0 ? width : ViewGroup.LayoutParams.MATCH_PARENT,
+                height,
+                WindowManager.LayoutParams.TYPE_APPLICATION_PANEL,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL,
+                PixelFormat.TRANSLUCENT);
+        final int[] location = new int[2];
+        anchor.getLocationInWindow(location);
+        params.gravity = Gravity.TOP | Gravity.LEFT;
+        params.x = location[0];
+        params.y = location[1] + topMargin;
+        params.token = decorView.getWindowToken();
+        params.setTitle(TAG);
+
+        final FrameLayout container = new FrameLayout(activity);
+        container.addView(snackbarView);
+        final WindowManager windowManager = activity.getWindowManager();
+        windowManager.addView(container, params);
+        // The window has to be removed through the same window manager, whatever the view's context is.
+        container.setTag(R.id.top_snackbar_window_manager, windowManager);
+        return true;
+    }
+
+    /**
+     * Removes the window of a container the snackbar view has been added to by
+     * {@link #addView(Activity, View, View, int)}, through the {@link WindowManager} of the
+     * activity it has been added to. Call it once the view has left the container, after its out
+     * animation has finished.
+     *
+     * @param parent The former parent of the snackbar view. Nothing is done if it is not the
+     *               container of a window.
+     */
+    static void removeWindow(ViewGroup parent) {
+        final Object windowManager = parent.getTag(R.id.top_snackbar_window_manager);
+        if (windowManager instanceof WindowManager) {
+            parent.setTag(R.id.top_snackbar_window_manager, null);
+            try {
+                ((WindowManager) windowManager).removeViewImmediate(parent);
+            } catch (IllegalArgumentException e) {
+                // The window has been removed with its activity while the view was animated out.
+            }
+        }
+    }
+}
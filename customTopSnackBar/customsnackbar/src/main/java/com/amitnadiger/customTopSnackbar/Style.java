@@ -130,6 +130,20 @@ public class Style {
         this.fontNameResId = builder.fontNameResId;
     }
 
+    /**
+     * @return <code>true</code> if a snackbar view laid out with this style keeps its layout with
+     * the other style, i.e. only colors, background, shadow or icon differ.
+     */
+    boolean hasSameLayoutAs(Style other) {
+        return heightInPixels == other.heightInPixels && heightDimensionResId == other.heightDimensionResId
+                && widthInPixels == other.widthInPixels && widthDimensionResId == other.widthDimensionResId
+                && gravity == other.gravity && imageScaleType == other.imageScaleType
+                && textSize == other.textSize && textAppearanceResId == other.textAppearanceResId
+                && paddingInPixels == other.paddingInPixels && paddingDimensionResId == other.paddingDimensionResId
+                && (null == fontName ? null == other.fontName : fontName.equals(other.fontName))
+                && fontNameResId == other.fontNameResId;
+    }
+
     /**
      * Builder for the {@link Style} object.
      */
@@ -382,4 +396,4 @@ public class Style {
         }
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -7,28 +7,42 @@ import android.graphics.BitmapFactory;
 import android.graphics.Shader;
 import android.graphics.Typeface;
 import android.graphics.drawable.BitmapDrawable;
-import android.text.Spannable;
-import android.text.SpannableString;
+import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.View;
 import android.view.View.OnClickListener;
 import android.view.ViewGroup;
 import android.view.animation.Animation;
-import android.view.animation.AnimationUtils;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 public final class TopSnackbar {
     private static final String TAG = "TopSnackbar";
     private static final String NULL_PARAMETERS_ARE_NOT_ACCEPTED = "Null parameters are not acceptable";
     private static final int IMAGE_ID = 0x100;
     private static final int TEXT_ID = 0x101;
-    private final CharSequence text;
-    private final Style style;
-    private final View customView;
+    private static final int CONTENT_TEXT = 1;
+    private static final int CONTENT_IMAGE = 1 << 1;
+    private static final int CONTENT_STYLE = 1 << 2;
+    private CharSequence text;
+    private Style style;
+    private View customView;
+    private SnackbarViewBinder<View, Object> viewBinder;
+    private Object viewData;
+    /**
+     * The pool of the activity the view has been built for, it is returned there once it is removed.
+     */
+    private SnackbarViewPool viewPool;
     private SnackBarConfiguration snackBarConfiguration = null;
     private OnClickListener onClickListener;
 
@@ -39,6 +53,47 @@ public final class TopSnackbar {
     private Animation outAnimation;
     private View mFragmentView;
     private LifecycleCallback lifecycleCallback = null;
+    private SnackbarManager.OnReleasedListener onReleasedListener = null;
+    private ExpiryCallback expiryCallback = null;
+    private long expiryTime;
+    /**
+     * Whether the manager's expiry index holds an entry for this TopSnackbar, until it is released.
+     */
+    private boolean isInExpiryIndex;
+    private long retainedBytes;
+    private long dismissalTime;
+    private boolean isAwaitingHost;
+    /**
+     * The parent this TopSnackbar's view is animated out of, set until the out animation has
+     * finished. The view is neither pooled nor dropped before that.
+     */
+    private ViewGroup leavingParent;
+    private int state = SnackbarManager.State.NEW;
+    private SnackbarManager snackbarManager;
+    private String tag;
+    private String derivedTag;
+    private String key;
+    private String category;
+    private int foldedCount = 1;
+    private boolean isPrerendered;
+    /**
+     * The id of this TopSnackbar in a {@link SnackbarRecorder} trace, or 0.
+     */
+    private int traceId;
+    private Drawable imageDrawable;
+    private int imageResId;
+    /**
+     * The {@link #CONTENT_TEXT}, {@link #CONTENT_IMAGE} and {@link #CONTENT_STYLE} changes not yet
+     * applied to the built view.
+     */
+    private int changedContent;
+    private Style appliedStyle;
+    private final Runnable applyContentRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyChangedContent();
+        }
+    };
 
     /**
      * Creates the TopSnackBar
@@ -160,6 +215,30 @@ public final class TopSnackbar {
         this(activity, customView, viewGroup, SnackBarConfiguration.DEFAULT);
     }
 
+    /**
+     * Creates the TopSnackbar.
+     *
+     * @param activity   The Activity that represents the context in which the snackbar should exist.
+     * @param viewBinder The binder creating and binding the custom view.
+     * @param viewData   The data to bind to the custom view.
+     * @param viewGroup  The ViewGroup that this TopSnackbar should be added to, or null.
+     */
+    @SuppressWarnings("unchecked")
+    private TopSnackbar(Activity activity, SnackbarViewBinder<?, ?> viewBinder, Object viewData, ViewGroup viewGroup) {
+        if ((activity == null) || (viewBinder == null)) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        this.activity = activity;
+        this.customView = null;
+        this.viewBinder = (SnackbarViewBinder<View, Object>) viewBinder;
+        this.viewData = viewData;
+        this.viewGroup = viewGroup;
+        this.style = new Style.Builder().build();
+        this.text = null;
+        this.snackBarConfiguration = SnackBarConfiguration.DEFAULT;
+        this.mFragmentView = null;
+    }
+
     /**
      * Creates a TopSnackbar with provided text and style for a given
      * activity.
@@ -312,6 +391,35 @@ public final class TopSnackbar {
         return new TopSnackbar(activity, customView, (ViewGroup) activity.findViewById(viewGroupResId), snackBarConfiguration);
     }
 
+    /**
+     * Creates a TopSnackbar showing a custom view of the given binder's type. The view is taken
+     * from the binder's pool if one is available, else created, and bound to the data right
+     * before it is displayed.
+     *
+     * @param activity   The Activity that represents the context in which the Snackbar should exist.
+     * @param viewBinder The binder creating and binding the custom view.
+     * @param data       The data to bind to the custom view.
+     * @return The created TopSnackbar.
+     */
+    public static <V extends View, T> TopSnackbar make(Activity activity, SnackbarViewBinder<V, T> viewBinder, T data) {
+        return new TopSnackbar(activity, viewBinder, data, null);
+    }
+
+    /**
+     * Creates a TopSnackbar showing a custom view of the given binder's type.
+     *
+     * @param activity   The Activity that represents the context in which the Snackbar should exist.
+     * @param viewBinder The binder creating and binding the custom view.
+     * @param data       The data to bind to the custom view.
+     * @param viewGroup  The ViewGroup that this TopSnackbar should be added to.
+     * @return The created TopSnackbar.
+     * @see #make(Activity, SnackbarViewBinder, Object)
+     */
+    public static <V extends View, T> TopSnackbar make(Activity activity, SnackbarViewBinder<V, T> viewBinder, T data,
+                                                       ViewGroup viewGroup) {
+        return new TopSnackbar(activity, viewBinder, data, viewGroup);
+    }
+
     /**
      * Creates a TopSnackbar with provided text and style for a given activity
      * and displays it directly.
@@ -442,6 +550,35 @@ public final class TopSnackbar {
         showText(activity, activity.getString(textResourceId), style, viewGroupResId);
     }
 
+    /**
+     * Displays several TopSnackbars, one after the other in iteration order. They are
+     * enqueued together, so the queue is only dispatched once for the whole batch. Each
+     * TopSnackbar goes to the manager it has been bound to with
+     * {@link #setSnackbarManager(SnackbarManager)}, those of one manager as one batch.
+     *
+     * @param snackbars The TopSnackbars you want to display.
+     */
+    public static void showAll(Collection<TopSnackbar> snackbars) {
+        if (snackbars == null) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        final Map<SnackbarManager, List<TopSnackbar>> batches = new LinkedHashMap<SnackbarManager, List<TopSnackbar>>();
+        for (TopSnackbar snackbar : snackbars) {
+            if (snackbar == null) {
+                throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+            }
+            List<TopSnackbar> batch = batches.get(snackbar.getSnackbarManager());
+            if (null == batch) {
+                batch = new ArrayList<TopSnackbar>();
+                batches.put(snackbar.getSnackbarManager(), batch);
+            }
+            batch.add(snackbar);
+        }
+        for (Map.Entry<SnackbarManager, List<TopSnackbar>> batch : batches.entrySet()) {
+            batch.getKey().addAll(batch.getValue());
+        }
+    }
+
     /**
      * Allows hiding of a previously displayed TopSnackbar.
      *
@@ -469,12 +606,118 @@ public final class TopSnackbar {
         SnackbarManager.getInstance().clearTopSnackbarForActivity(activity);
     }
 
+    /**
+     * @return The number of TopSnackbars dropped from the queue because their time to live
+     * passed before they could be displayed.
+     */
+    public static long getExpiredCount() {
+        return SnackbarManager.getInstance().getExpiredCount();
+    }
+
+    /**
+     * Limits the number of queued TopSnackbars and the memory they may retain. When a
+     * limit is reached, the overflow policy of the configuration is applied.
+     *
+     * @param queueConfiguration a SnackbarQueueConfiguration built using the SnackbarQueueConfiguration.Builder.
+     */
+    public static void setQueueConfiguration(SnackbarQueueConfiguration queueConfiguration) {
+        if (queueConfiguration == null) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        SnackbarManager.getInstance().setQueueConfiguration(queueConfiguration);
+    }
+
+    /**
+     * @return The number of TopSnackbars dropped or rejected because the queue was full.
+     */
+    public static long getOverflowCount() {
+        return SnackbarManager.getInstance().getOverflowCount();
+    }
+
+    /**
+     * @return The number of TopSnackbars folded into summaries because the backlog passed the
+     * collapse threshold.
+     */
+    public static long getCollapsedCount() {
+        return SnackbarManager.getInstance().getCollapsedCount();
+    }
+
+    /**
+     * Moves all TopSnackbars of an activity to the activity that replaces it. The displayed
+     * TopSnackbar is moved without being animated again and keeps its remaining duration,
+     * queued TopSnackbars are displayed in the new activity. Configuration changes are handled
+     * automatically, this is needed when one activity hands over to another one.
+     * <p>
+     * TopSnackbars showing a custom view created by the app are dropped instead, as the view
+     * holds the old activity as its context and would leak it. Create them with a
+     * {@link SnackbarViewBinder} to have them moved, their view is then created again.
+     * </p>
+     *
+     * @param from The activity the TopSnackbars are currently displayed in.
+     * @param to   The activity that should display them from now on.
+     */
+    public static void handOff(Activity from, Activity to) {
+        if ((from == null) || (to == null)) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        SnackbarManager.getInstance().handOffTopSnackbars(from, to);
+    }
+
+    /**
+     * Turns trace sections for the work done for TopSnackbars on or off. They show up in
+     * systrace and Perfetto, named after the stage and the TopSnackbar's tag. Off by default.
+     *
+     * @param isTracingEnabled Whether trace sections should be recorded.
+     */
+    public static void setTracingEnabled(boolean isTracingEnabled) {
+        SnackbarTrace.setEnabled(isTracingEnabled);
+    }
+
+    /**
+     * Enables a debug watchdog that times the main thread stages of each TopSnackbar: view build,
+     * measure, attach and callback dispatch. Stages taking longer than the budget are reported
+     * with the TopSnackbar's tag, its style and a snapshot of the main thread's stack. Calls to
+     * show() from other threads than the main thread are reported as well.
+     *
+     * @param budgetInMilliseconds The time a single stage may take.
+     * @param listener             Receives the reports, or null to log them.
+     */
+    public static void enableWatchdog(long budgetInMilliseconds, SnackbarWatchdogListener listener) {
+        SnackbarWatchdog.enable(budgetInMilliseconds, listener);
+    }
+
+    /**
+     * Disables the watchdog enabled with enableWatchdog().
+     */
+    public static void disableWatchdog() {
+        SnackbarWatchdog.disable();
+    }
+
+    /**
+     * Starts recording the traffic of the default manager into a trace that can be played back
+     * with {@link SnackbarReplay}.
+     *
+     * @param recorder The recorder, or null to stop recording. It is not closed.
+     */
+    public static void setRecorder(SnackbarRecorder recorder) {
+        SnackbarManager.getInstance().setRecorder(recorder);
+    }
+
+    /**
+     * Sets the listener told how late frame aligned TopSnackbar operations ran, compared
+     * to the time they were due.
+     *
+     * @param frameLatenessListener The listener, or null to remove it.
+     */
+    public static void setFrameLatenessListener(FrameLatenessListener frameLatenessListener) {
+        SnackbarManager.getInstance().setFrameLatenessListener(frameLatenessListener);
+    }
+
     /**
      * Cancels a TopSnackbar immediately.
      */
     public void cancel() {
-        SnackbarManager manager = SnackbarManager.getInstance();
-        manager.removeTopSnackbarImmediately(this);
+        getSnackbarManager().removeTopSnackbarImmediately(this);
     }
 
     /**
@@ -482,7 +725,8 @@ public final class TopSnackbar {
      * the time, this TopSnackbar will be displayed afterwards.
      */
     public void show() {
-        SnackbarManager.getInstance().add(this);
+        SnackbarWatchdog.checkMainThread(this);
+        getSnackbarManager().add(this);
     }
 
 
@@ -490,10 +734,13 @@ public final class TopSnackbar {
         if ((null == this.inAnimation) && (null != this.activity)) {
 
             if (getSnackBarConfiguration().inAnimationResId > 0) {
-                this.inAnimation = AnimationUtils.loadAnimation(getActivity(), getSnackBarConfiguration().inAnimationResId);
+                final Object section = SnackbarTrace.beginSection(SnackbarTrace.RESOLVE_RESOURCES, this);
+                this.inAnimation = getSnackbarManager().getAnimationsBuilder()
+                        .loadAnimation(getActivity(), getSnackBarConfiguration().inAnimationResId);
+                SnackbarTrace.endSection(section);
             } else {
                 measureTopSnackbarView();
-                this.inAnimation = DefaultAnimationsBuilder.buildDefaultSlideInDownAnimation(getView());
+                this.inAnimation = getSnackbarManager().getAnimationsBuilder().buildDefaultSlideInDownAnimation(getView());
             }
         }
         return inAnimation;
@@ -503,9 +750,12 @@ public final class TopSnackbar {
         if ((null == this.outAnimation) && (null != this.activity)) {
 
             if (getSnackBarConfiguration().outAnimationResId > 0) {
-                this.outAnimation = AnimationUtils.loadAnimation(getActivity(), getSnackBarConfiguration().outAnimationResId);
+                final Object section = SnackbarTrace.beginSection(SnackbarTrace.RESOLVE_RESOURCES, this);
+                this.outAnimation = getSnackbarManager().getAnimationsBuilder()
+                        .loadAnimation(getActivity(), getSnackBarConfiguration().outAnimationResId);
+                SnackbarTrace.endSection(section);
             } else {
-                this.outAnimation = DefaultAnimationsBuilder.buildDefaultSlideOutUpAnimation(getView());
+                this.outAnimation = getSnackbarManager().getAnimationsBuilder().buildDefaultSlideOutUpAnimation(getView());
             }
         }
         return outAnimation;
@@ -517,7 +767,257 @@ public final class TopSnackbar {
      * @since 1.9
      */
     public void hide() {
-        SnackbarManager.getInstance().removeTopSnackbar(this);
+        getSnackbarManager().hide(this);
+    }
+
+    /**
+     * Changes the content of this TopSnackbar in place, whether it is queued or displayed, instead
+     * of cancelling it and showing a new one. A displayed snackbar keeps its view: only the changed
+     * parts are redrawn, and laid out again only if their size changes. Updates made within one
+     * frame are applied together at the next frame. Text and icon updates have no effect on a
+     * TopSnackbar showing a custom view. Must be called on the main thread.
+     *
+     * @param update The new content, built using the SnackbarUpdate.Builder.
+     */
+    public void update(SnackbarUpdate update) {
+        if (null == update) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        if (!hasCustomView()) {
+            if (null != update.text) {
+                this.text = update.text;
+                changedContent |= CONTENT_TEXT;
+            }
+            if (null != update.imageDrawable || 0 != update.imageResId) {
+                this.imageDrawable = update.imageDrawable;
+                this.imageResId = update.imageResId;
+                changedContent |= CONTENT_IMAGE;
+            }
+            if (null != update.style && update.style != style) {
+                this.style = update.style;
+                changedContent |= CONTENT_STYLE;
+            }
+        }
+        if (null != topSnackbarView && 0 != changedContent) {
+            // A view that is not attached has nothing to draw, it is updated right away.
+            if (null == topSnackbarView.getWindowToken()) {
+                applyChangedContent();
+            } else {
+                topSnackbarView.removeCallbacks(applyContentRunnable);
+                topSnackbarView.postOnAnimation(applyContentRunnable);
+            }
+        }
+        if (update.isDismissalTimerReset) {
+            getSnackbarManager().resetDismissalTimer(this);
+        }
+    }
+
+    /**
+     * Applies the content changed by {@link #update(SnackbarUpdate)} to the built view.
+     */
+    private void applyChangedContent() {
+        if (null == topSnackbarView || 0 == changedContent) {
+            changedContent = 0;
+            return;
+        }
+        final Resources resources = this.activity.getResources();
+        final TextView textView = (TextView) topSnackbarView.findViewById(TEXT_ID);
+        final ImageView imageView = (ImageView) topSnackbarView.findViewById(IMAGE_ID);
+        final boolean hasImage = null != getImageDrawable() || 0 != getImageResId();
+        final boolean isLayoutKept = null != textView && (null != imageView) == hasImage
+                && (0 == (changedContent & CONTENT_STYLE) || appliedStyle.hasSameLayoutAs(style));
+        if (!isLayoutKept) {
+            // Rebuild the content within the attached view group.
+            topSnackbarView.removeAllViews();
+            applyViewGroupStyle(topSnackbarView, resources);
+            topSnackbarView.addView(initializeContentView(resources));
+        } else {
+            // The platform views only request a layout if their size changes.
+            if (0 != (changedContent & CONTENT_STYLE)) {
+                applyViewGroupStyle(topSnackbarView, resources);
+                applyTextColors(textView, resources);
+            }
+            if (0 != (changedContent & CONTENT_TEXT)) {
+                applyText(textView);
+            }
+            // A new style may bring its own icon as well.
+            if (0 != (changedContent & (CONTENT_IMAGE | CONTENT_STYLE)) && null != imageView) {
+                applyImage(imageView);
+            }
+        }
+        appliedStyle = style;
+        changedContent = 0;
+    }
+
+    /**
+     * Takes over the displayed view of a TopSnackbar this one replaces, crossfading its content to
+     * the content of this TopSnackbar. The view stays attached. Animations built for a view of its
+     * own are dropped, they are built again for the adopted view when needed.
+     *
+     * @param previous The replaced TopSnackbar, it no longer owns the view afterwards.
+     */
+    void takeOverView(TopSnackbar previous) {
+        final FrameLayout snackbarView = previous.topSnackbarView;
+        snackbarView.removeCallbacks(previous.applyContentRunnable);
+        previous.topSnackbarView = null;
+        this.topSnackbarView = snackbarView;
+        this.inAnimation = null;
+        this.outAnimation = null;
+        this.isPrerendered = false;
+        this.viewPool = previous.viewPool;
+        previous.viewPool = null;
+        this.appliedStyle = style;
+        this.changedContent = 0;
+        snackbarView.setOnClickListener(onClickListener);
+
+        // Keep only the content that is visible now, a previous crossfade may still be running.
+        while (snackbarView.getChildCount() > 1) {
+            snackbarView.removeView(snackbarView.getChildAt(0));
+        }
+        final View oldContent = snackbarView.getChildAt(0);
+        final Resources resources = this.activity.getResources();
+        applyViewGroupStyle(snackbarView, resources);
+        final RelativeLayout newContent = initializeContentView(resources);
+        snackbarView.addView(newContent);
+        if (null == oldContent) {
+            return;
+        }
+        // Updates go to the new content from now on.
+        clearContentIds(oldContent);
+        final long duration = getSnackBarConfiguration().crossfadeDurationInMilliseconds;
+        newContent.setAlpha(0);
+        newContent.animate().alpha(1).setDuration(duration);
+        oldContent.animate().alpha(0).setDuration(duration).withEndAction(new Runnable() {
+            @Override
+            public void run() {
+                snackbarView.removeView(oldContent);
+            }
+        });
+    }
+
+    private static void clearContentIds(View content) {
+        final View text = content.findViewById(TEXT_ID);
+        if (null != text) {
+            text.setId(View.NO_ID);
+        }
+        final View image = content.findViewById(IMAGE_ID);
+        if (null != image) {
+            image.setId(View.NO_ID);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if this TopSnackbar can take over the displayed view of the other
+     * one, i.e. both show text and are displayed at the same place the same way.
+     */
+    boolean canTakeOverViewOf(TopSnackbar other) {
+        return !hasCustomView() && !other.hasCustomView() && null != other.topSnackbarView
+                && null != activity && activity == other.activity && viewGroup == other.viewGroup
+                && mFragmentView == other.mFragmentView
+                && getSnackBarConfiguration().displayMode == other.getSnackBarConfiguration().displayMode;
+    }
+
+    /**
+     * Sets the key identifying what this TopSnackbar is about, e.g. "sync-progress". A TopSnackbar
+     * shown with {@link SnackBarConfiguration#SHOW_MODE_REPLACE} drops the queued ones with the same key.
+     *
+     * @param key The key, or <code>null</code> for none.
+     * @return this TopSnackbar.
+     */
+    public TopSnackbar setKey(String key) {
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * @return the key, or <code>null</code> if none has been set
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Sets the category of this TopSnackbar, e.g. "messages". With
+     * {@link SnackbarQueueConfiguration#COLLAPSE_BY_CATEGORY}, only TopSnackbars of the same
+     * category are folded into one summary.
+     *
+     * @param category The category, or <code>null</code> for none.
+     * @return this TopSnackbar.
+     */
+    public TopSnackbar setCategory(String category) {
+        this.category = category;
+        return this;
+    }
+
+    /**
+     * @return the category, or <code>null</code> if none has been set
+     */
+    String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the number of TopSnackbars this one stands for, 1 unless it is a summary
+     */
+    int getFoldedCount() {
+        return foldedCount;
+    }
+
+    void setFoldedCount(int foldedCount) {
+        this.foldedCount = foldedCount;
+    }
+
+    /**
+     * Sets the {@link SnackbarManager} this TopSnackbar is shown, hidden and cancelled with,
+     * instead of the default one. Must be set before {@link #show()}.
+     *
+     * @param snackbarManager The manager, e.g. one running on a {@link VirtualTimeScheduler} in tests.
+     * @return this TopSnackbar.
+     */
+    public TopSnackbar setSnackbarManager(SnackbarManager snackbarManager) {
+        if (null == snackbarManager) {
+            throw new IllegalArgumentException(NULL_PARAMETERS_ARE_NOT_ACCEPTED);
+        }
+        this.snackbarManager = snackbarManager;
+        return this;
+    }
+
+    /**
+     * @return the {@link SnackbarManager} set for this TopSnackbar, or the default one
+     */
+    SnackbarManager getSnackbarManager() {
+        return null != snackbarManager ? snackbarManager : SnackbarManager.getInstance();
+    }
+
+    /**
+     * Sets the tag identifying this TopSnackbar in trace sections and diagnostics.
+     *
+     * @param tag A short, stable name, e.g. "upload-done".
+     * @return this TopSnackbar.
+     */
+    public TopSnackbar setTag(String tag) {
+        this.tag = tag;
+        return this;
+    }
+
+    /**
+     * @return the tag, or a name derived from this TopSnackbar's identity if none has been set
+     */
+    String getTag() {
+        if (null == tag) {
+            if (null == derivedTag) {
+                derivedTag = "TopSnackbar@" + Integer.toHexString(System.identityHashCode(this));
+            }
+            return derivedTag;
+        }
+        return tag;
+    }
+
+    /**
+     * @return the tag set by the app, or null
+     */
+    String peekTag() {
+        return tag;
     }
 
     /**
@@ -553,21 +1053,32 @@ public final class TopSnackbar {
      * <code>false</code>.
      */
     boolean isShowing() {
-        return ((null != activity) || (null != mFragmentView)) && (isTopSnackbarViewNotNull() || isCustomViewNotNull());
+        return state >= SnackbarManager.State.ATTACHING && state <= SnackbarManager.State.HIDING;
     }
 
-    private boolean isTopSnackbarViewNotNull() {
-        return (null != topSnackbarView) && (null != topSnackbarView.getParent());
+    /**
+     * @return <code>true</code> if the TopSnackbar is queued or displayed, else
+     * <code>false</code>.
+     */
+    boolean isInManager() {
+        return state >= SnackbarManager.State.QUEUED && state <= SnackbarManager.State.HIDING;
+    }
+
+    /**
+     * @return The {@link SnackbarManager.State} of this TopSnackbar.
+     */
+    int getState() {
+        return state;
+    }
+
+    void setState(int state) {
+        this.state = state;
     }
 
     //////////////////////////////////////////////////////////////////////////////////////
     // internal API of TopSnackBar.
     //////////////////////////////////////////////////////////////////////////////////////
 
-    private boolean isCustomViewNotNull() {
-        return (null != customView) && (null != customView.getParent());
-    }
-
     /**
      * Removes the activity reference this TopSanckbar is holding
      */
@@ -575,6 +1086,97 @@ public final class TopSnackbar {
         activity = null;
     }
 
+    /**
+     * Moves this TopSnackbar to a new activity, e.g. the one re-created after a configuration
+     * change. The supplied ViewGroup and fragment view are looked up by id in the new activity,
+     * and a view built by this TopSnackbar or its binder is dropped so it is rebuilt with the new
+     * activity. Must not be called if {@link #hasSuppliedView()}.
+     *
+     * @param newActivity The activity that takes over this TopSnackbar.
+     */
+    void rebindActivity(Activity newActivity) {
+        if (null != viewGroup) {
+            final View newViewGroup = findEquivalentView(newActivity, viewGroup);
+            viewGroup = newViewGroup instanceof ViewGroup ? (ViewGroup) newViewGroup : null;
+        }
+        if (null != mFragmentView) {
+            mFragmentView = findEquivalentView(newActivity, mFragmentView);
+        }
+        activity = newActivity;
+        topSnackbarView = null;
+        if (null != viewBinder) {
+            // A bound view is created again with the new activity.
+            customView = null;
+        }
+        viewPool = null;
+        inAnimation = null;
+        outAnimation = null;
+        isPrerendered = false;
+    }
+
+    /**
+     * @return <code>true</code> if this TopSnackbar shows a custom view created by the app, which
+     * can not be created again for another activity.
+     */
+    boolean hasSuppliedView() {
+        return null != customView && null == viewBinder;
+    }
+
+    /**
+     * Builds and measures the view and loads the animations ahead of time, while this TopSnackbar
+     * is still queued, so attaching it only adds the view.
+     */
+    void prerender() {
+        measureTopSnackbarView();
+        getInAnimation();
+        getOutAnimation();
+        isPrerendered = true;
+    }
+
+    /**
+     * Drops what {@link #prerender()} built. A custom view is kept.
+     */
+    void discardPrerender() {
+        topSnackbarView = null;
+        inAnimation = null;
+        outAnimation = null;
+        isPrerendered = false;
+    }
+
+    /**
+     * @return <code>true</code> if the view and animations have been prepared ahead of time
+     */
+    boolean isPrerendered() {
+        return isPrerendered;
+    }
+
+    private static View findEquivalentView(Activity newActivity, View oldView) {
+        return View.NO_ID != oldView.getId() ? newActivity.findViewById(oldView.getId()) : null;
+    }
+
+    /**
+     * @return <code>true</code> while this TopSnackbar's activity is being replaced and it must
+     * not be displayed
+     */
+    boolean isAwaitingHost() {
+        return isAwaitingHost;
+    }
+
+    void setAwaitingHost(boolean isAwaitingHost) {
+        this.isAwaitingHost = isAwaitingHost;
+    }
+
+    /**
+     * @return The parent this TopSnackbar's view is still animated out of, or <code>null</code>.
+     */
+    ViewGroup getLeavingParent() {
+        return leavingParent;
+    }
+
+    void setLeavingParent(ViewGroup leavingParent) {
+        this.leavingParent = leavingParent;
+    }
+
     /**
      * Removes the fragment reference this TopSanckbar is holding
      */
@@ -610,6 +1212,93 @@ public final class TopSnackbar {
         this.lifecycleCallback = lifecycleCallback;
     }
 
+    /**
+     * @return the expiryCallback
+     */
+    ExpiryCallback getExpiryCallback() {
+        return expiryCallback;
+    }
+
+    /**
+     * @param expiryCallback Callback invoked if this TopSnackbar's time to live passes before it is displayed.
+     * @return this TopSnackbar.
+     */
+    public TopSnackbar setExpiryCallback(ExpiryCallback expiryCallback) {
+        this.expiryCallback = expiryCallback;
+        return this;
+    }
+
+    /**
+     * @return the uptime in milliseconds after which this TopSnackbar is dropped from the queue, or 0.
+     */
+    long getExpiryTime() {
+        return expiryTime;
+    }
+
+    void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    boolean isInExpiryIndex() {
+        return isInExpiryIndex;
+    }
+
+    void setInExpiryIndex(boolean isInExpiryIndex) {
+        this.isInExpiryIndex = isInExpiryIndex;
+    }
+
+    int getTraceId() {
+        return traceId;
+    }
+
+    void setTraceId(int traceId) {
+        this.traceId = traceId;
+    }
+
+    /**
+     * @return the estimated bytes retained by this TopSnackbar while queued
+     */
+    long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    void setRetainedBytes(long retainedBytes) {
+        this.retainedBytes = retainedBytes;
+    }
+
+    /**
+     * @return the uptime in milliseconds at which this TopSnackbar's removal is scheduled
+     */
+    long getDismissalTime() {
+        return dismissalTime;
+    }
+
+    void setDismissalTime(long dismissalTime) {
+        this.dismissalTime = dismissalTime;
+    }
+
+    /**
+     * @return <code>true</code> if both TopSnackbars show the same text with the same style.
+     */
+    boolean hasSameContentAs(TopSnackbar other) {
+        return !hasCustomView() && !other.hasCustomView() && style == other.style
+                && null != text && null != other.text && text.toString().equals(other.text.toString());
+    }
+
+    /**
+     * @return the listener notified once this TopSnackbar has left the SnackbarManager
+     */
+    SnackbarManager.OnReleasedListener getOnReleasedListener() {
+        return onReleasedListener;
+    }
+
+    /**
+     * @param onReleasedListener Internal listener notified once this TopSnackbar has left the SnackbarManager.
+     */
+    void setOnReleasedListener(SnackbarManager.OnReleasedListener onReleasedListener) {
+        this.onReleasedListener = onReleasedListener;
+    }
+
     /**
      * @return the style
      */
@@ -667,6 +1356,20 @@ public final class TopSnackbar {
         return text;
     }
 
+    /**
+     * @return the view if it has already been built or supplied, without building it
+     */
+    View peekView() {
+        return null != customView ? customView : topSnackbarView;
+    }
+
+    /**
+     * @return <code>true</code> if this TopSnackbar shows a custom view instead of text
+     */
+    boolean hasCustomView() {
+        return null != customView || null != viewBinder;
+    }
+
     /**
      * @return the view
      */
@@ -676,16 +1379,91 @@ public final class TopSnackbar {
             return this.customView;
         }
 
+        if (null != this.viewBinder) {
+            this.customView = obtainBoundView();
+            return this.customView;
+        }
+
         // if already setup return the view
-        if (null == this.topSnackbarView) {
+        if (null == this.topSnackbarView && !reusePooledView()) {
+            final Object section = SnackbarTrace.beginSection(SnackbarTrace.BUILD_VIEW, this);
             initializeTopSnackbarView();
+            SnackbarTrace.endSection(section);
         }
 
         return topSnackbarView;
     }
 
+    private View obtainBoundView() {
+        viewPool = SnackbarViewPool.obtain(activity);
+        View view = null != viewPool ? viewPool.acquire(viewBinder) : null;
+        if (null == view) {
+            final Object section = SnackbarTrace.beginSection(SnackbarTrace.BUILD_VIEW, this);
+            view = viewBinder.createView(activity);
+            SnackbarTrace.endSection(section);
+        }
+        viewBinder.bind(view, viewData);
+        return view;
+    }
+
+    /**
+     * Takes a view left by a removed TopSnackbar of the same {@link Style} from the pool and
+     * shows the content of this one in it. Its layout is kept if both have an icon or neither has.
+     *
+     * @return <code>false</code> if there is no pooled view and a new one must be built.
+     */
+    private boolean reusePooledView() {
+        viewPool = SnackbarViewPool.obtain(activity);
+        final View pooled = null != viewPool ? viewPool.acquire(style) : null;
+        if (null == pooled) {
+            return false;
+        }
+        topSnackbarView = (FrameLayout) pooled;
+        topSnackbarView.setOnClickListener(onClickListener);
+        topSnackbarView.setClickable(null != onClickListener);
+        // The previous attach may have changed the size and margins of the layout params.
+        final ViewGroup.LayoutParams params = topSnackbarView.getLayoutParams();
+        if (params instanceof ViewGroup.MarginLayoutParams) {
+            ((ViewGroup.MarginLayoutParams) params).setMargins(0, 0, 0, 0);
+        }
+        applyViewGroupSize(topSnackbarView, activity.getResources());
+        appliedStyle = style;
+        changedContent = CONTENT_TEXT | CONTENT_IMAGE;
+        applyChangedContent();
+        return true;
+    }
+
+    /**
+     * Drops the views and animations built for displaying this TopSnackbar once it has left the
+     * manager, so a released snackbar keeps no more than its content. Views built by this
+     * TopSnackbar or its binder are returned to the pool, a custom view passed in is kept.
+     * Everything is built again if this TopSnackbar is shown another time.
+     */
+    void releaseViews() {
+        final View view = null != customView ? customView : topSnackbarView;
+        if (null != leavingParent || (null != view && null != view.getParent())) {
+            // Still attached or animated out, nothing may be dropped yet.
+            return;
+        }
+        if (null != viewBinder && null != customView) {
+            if (null != viewPool) {
+                viewPool.release(viewBinder, customView);
+            }
+            customView = null;
+        }
+        if (null != topSnackbarView) {
+            topSnackbarView.removeCallbacks(applyContentRunnable);
+            if (null != viewPool) {
+                viewPool.release(appliedStyle, topSnackbarView);
+            }
+        }
+        viewPool = null;
+        discardPrerender();
+    }
+
     private void measureTopSnackbarView() {
         View view = getView();
+        final Object section = SnackbarTrace.beginSection(SnackbarTrace.MEASURE, this);
         int widthSpec;
         if (null != viewGroup) {
             widthSpec = View.MeasureSpec.makeMeasureSpec(viewGroup.getMeasuredWidth(), View.MeasureSpec.AT_MOST);
@@ -694,12 +1472,17 @@ public final class TopSnackbar {
                     View.MeasureSpec.AT_MOST);
         }
         view.measure(widthSpec, View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        SnackbarTrace.endSection(section);
     }
 
     private void initializeTopSnackbarView() {
         Resources resources = this.activity.getResources();
 
+        final Object section = SnackbarTrace.beginSection(SnackbarTrace.RESOLVE_RESOURCES, this);
         this.topSnackbarView = initializeSnackbarViewGroup(resources);
+        SnackbarTrace.endSection(section);
+        this.appliedStyle = this.style;
+        this.changedContent = 0;
 
         // create content view
         RelativeLayout contentView = initializeContentView(resources);
@@ -713,22 +1496,16 @@ public final class TopSnackbar {
             snackbarView.setOnClickListener(onClickListener);
         }
 
-        final int height;
-        if (this.style.heightDimensionResId > 0) {
-            height = resources.getDimensionPixelSize(this.style.heightDimensionResId);
-        } else {
-            height = this.style.heightInPixels;
-        }
-
-        final int width;
-        if (this.style.widthDimensionResId > 0) {
-            width = resources.getDimensionPixelSize(this.style.widthDimensionResId);
-        } else {
-            width = this.style.widthInPixels;
-        }
+        snackbarView.setLayoutParams(new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, 0));
+        applyViewGroupStyle(snackbarView, resources);
+        return snackbarView;
+    }
 
-        snackbarView.setLayoutParams(
-                new FrameLayout.LayoutParams(width != 0 ? width : FrameLayout.LayoutParams.MATCH_PARENT, height));
+    /**
+     * Applies the size and background of the {@link Style} to the snackbar's view group.
+     */
+    private void applyViewGroupStyle(FrameLayout snackbarView, Resources resources) {
+        applyViewGroupSize(snackbarView, resources);
 
         // set background
         if (this.style.backgroundColorValue != Style.NOT_SET) {
@@ -747,7 +1524,33 @@ public final class TopSnackbar {
             }
             snackbarView.setBackgroundDrawable(drawable);
         }
-        return snackbarView;
+    }
+
+    /**
+     * Applies the size of the {@link Style} to the snackbar's view group.
+     */
+    private void applyViewGroupSize(FrameLayout snackbarView, Resources resources) {
+        final int height;
+        if (this.style.heightDimensionResId > 0) {
+            height = resources.getDimensionPixelSize(this.style.heightDimensionResId);
+        } else {
+            height = this.style.heightInPixels;
+        }
+
+        final int width;
+        if (this.style.widthDimensionResId > 0) {
+            width = resources.getDimensionPixelSize(this.style.widthDimensionResId);
+        } else {
+            width = this.style.widthInPixels;
+        }
+
+        final ViewGroup.LayoutParams layoutParams = snackbarView.getLayoutParams();
+        final int layoutWidth = width != 0 ? width : FrameLayout.LayoutParams.MATCH_PARENT;
+        if (layoutParams.width != layoutWidth || layoutParams.height != height) {
+            layoutParams.width = layoutWidth;
+            layoutParams.height = height;
+            snackbarView.setLayoutParams(layoutParams);
+        }
     }
 
     private RelativeLayout initializeContentView(final Resources resources) {
@@ -767,7 +1570,7 @@ public final class TopSnackbar {
 
         // only setup image if one is requested
         ImageView image = null;
-        if ((null != this.style.imageDrawable) || (0 != this.style.imageResId)) {
+        if ((null != getImageDrawable()) || (0 != getImageResId())) {
             image = initializeImageView();
             contentView.addView(image, image.getLayoutParams());
         }
@@ -795,23 +1598,10 @@ public final class TopSnackbar {
     private TextView initializeTextView(final Resources resources) {
         TextView text = new TextView(this.activity);
         text.setId(TEXT_ID);
-        if (this.style.fontName != null) {
-            setTextWithCustomFont(text, this.style.fontName);
-        } else if (this.style.fontNameResId != 0) {
-            setTextWithCustomFont(text, resources.getString(this.style.fontNameResId));
-        } else {
-            text.setText(this.text);
-        }
+        applyText(text);
         text.setTypeface(Typeface.DEFAULT_BOLD);
         text.setGravity(this.style.gravity);
 
-        // set the text color if set
-        if (this.style.textColorValue != Style.NOT_SET) {
-            text.setTextColor(this.style.textColorValue);
-        } else if (this.style.textColorResourceId != 0) {
-            text.setTextColor(resources.getColor(this.style.textColorResourceId));
-        }
-
         // Set the text size. If the user has set a text size and text
         // appearance, the text size in the text appearance
         // will override this.
@@ -819,27 +1609,55 @@ public final class TopSnackbar {
             text.setTextSize(TypedValue.COMPLEX_UNIT_SP, this.style.textSize);
         }
 
-        // Setup the shadow if requested
-        if (this.style.textShadowColorResId != 0) {
-            initializeTextViewShadow(resources, text);
-        }
+        applyTextColors(text, resources);
 
         // Set the text appearance
         if (this.style.textAppearanceResId != 0) {
             text.setTextAppearance(this.activity, this.style.textAppearanceResId);
         }
+
+        // The custom font overrides the typeface of the text appearance.
+        if (this.style.fontName != null) {
+            applyCustomFont(text, this.style.fontName);
+        } else if (this.style.fontNameResId != 0) {
+            applyCustomFont(text, resources.getString(this.style.fontNameResId));
+        }
         return text;
     }
 
-    private void setTextWithCustomFont(TextView text, String fontName) {
-        if (this.text != null) {
-            SpannableString s = new SpannableString(this.text);
-            s.setSpan(new CustomFont(text.getContext(), fontName), 0, s.length(),
-                    Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-            text.setText(s);
+    private void applyText(TextView text) {
+        // A pooled view may show the same text already.
+        if (!TextUtils.equals(text.getText(), this.text)) {
+            text.setText(this.text);
         }
     }
 
+    private void applyTextColors(TextView text, Resources resources) {
+        // set the text color if set
+        if (this.style.textColorValue != Style.NOT_SET) {
+            text.setTextColor(this.style.textColorValue);
+        } else if (this.style.textColorResourceId != 0) {
+            text.setTextColor(resources.getColor(this.style.textColorResourceId));
+        }
+
+        // Setup the shadow if requested
+        if (this.style.textShadowColorResId != 0) {
+            initializeTextViewShadow(resources, text);
+        } else {
+            // Clear the shadow of a previous style or of a pooled view.
+            text.setShadowLayer(0, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Sets the typeface of the font on the text view instead of spanning each text with it, so
+     * binding another text to the view, e.g. a pooled one, does not create a span. The font is
+     * part of the layout of a {@link Style}, a view keeps it for as long as it is used.
+     */
+    private static void applyCustomFont(TextView text, String fontName) {
+        text.setTypeface(CustomFont.obtain(text.getContext(), fontName).getTypeface());
+    }
+
     private void initializeTextViewShadow(final Resources resources, final TextView text) {
         int textShadowColor = resources.getColor(this.style.textShadowColorResId);
         float textShadowRadius = this.style.textShadowRadius;
@@ -854,17 +1672,7 @@ public final class TopSnackbar {
         image.setId(IMAGE_ID);
         image.setAdjustViewBounds(true);
         image.setScaleType(this.style.imageScaleType);
-
-        // set the image drawable if not null
-        if (null != this.style.imageDrawable) {
-            image.setImageDrawable(this.style.imageDrawable);
-        }
-
-        // set the image resource if not 0. This will overwrite the drawable
-        // if both are set
-        if (this.style.imageResId != 0) {
-            image.setImageResource(this.style.imageResId);
-        }
+        applyImage(image);
 
         RelativeLayout.LayoutParams imageParams = new RelativeLayout.LayoutParams(
                 RelativeLayout.LayoutParams.WRAP_CONTENT,
@@ -877,5 +1685,32 @@ public final class TopSnackbar {
         return image;
     }
 
+    private void applyImage(ImageView image) {
+        // set the image drawable if not null
+        if (null != getImageDrawable()) {
+            image.setImageDrawable(getImageDrawable());
+        }
+
+        // set the image resource if not 0. This will overwrite the drawable
+        // if both are set
+        if (getImageResId() != 0) {
+            image.setImageResource(getImageResId());
+        }
+    }
+
+    /**
+     * @return the icon set by an update, else the one of the style
+     */
+    private Drawable getImageDrawable() {
+        return null != imageDrawable || 0 != imageResId ? imageDrawable : style.imageDrawable;
+    }
+
+    /**
+     * @return the icon resource set by an update, else the one of the style
+     */
+    private int getImageResId() {
+        return null != imageDrawable || 0 != imageResId ? imageResId : style.imageResId;
+    }
+
 }
 
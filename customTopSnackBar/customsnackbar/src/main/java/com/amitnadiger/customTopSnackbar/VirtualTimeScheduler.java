@@ -0,0 +1,244 @@
+package com.amitnadiger.customTopSnackbar;
+
+import java.util.ArrayList;
+
+
+/**
+ * A {@link SnackbarScheduler} with a virtual clock that only moves on when told to.
+ * <p>
+ * Scheduled work is run synchronously, from {@link #advanceBy(long)}, {@link #advanceTo(long)}
+ * and {@link #runUntilIdle()}, so hours of snackbar traffic run in milliseconds and every run is
+ * the same. Its thread is the one that created it. Not thread safe.
+ * </p>
+ * <p>
+ * Idle deferral and frame alignment need a real {@link android.os.Looper}, a
+ * {@link SnackbarManager} running on this scheduler attaches and removes views as soon as they are due.
+ * It does not wait for a layout pass of an attached view either, the in animation is started and
+ * the display duration starts running down from scheduled work, so no looper has to run.
+ * </p>
+ */
+public final class VirtualTimeScheduler implements SnackbarScheduler {
+    private final Thread thread = Thread.currentThread();
+    /**
+     * The scheduled work as a binary heap ordered by due time, walked by index so neither
+     * scheduling nor cancelling creates an iterator.
+     */
+    private final ArrayList<Work> queue = new ArrayList<Work>();
+    /**
+     * Work that has been run or cancelled, reused so scheduling does not allocate.
+     */
+    private final ArrayList<Work> free = new ArrayList<Work>();
+    private Target target;
+    private long now;
+    private long sequence;
+
+    public VirtualTimeScheduler() {
+        this(0);
+    }
+
+    /**
+     * @param startTime The initial value of the clock, in milliseconds.
+     */
+    public VirtualTimeScheduler(long startTime) {
+        this.now = startTime;
+    }
+
+    /**
+     * Moves the clock forward, running all work that becomes due on the way, in order.
+     *
+     * @param durationInMilliseconds The time to move forward by.
+     */
+    public void advanceBy(long durationInMilliseconds) {
+        advanceTo(now + durationInMilliseconds);
+    }
+
+    /**
+     * Moves the clock to the given time, running all work that becomes due on the way, in order.
+     * Work scheduled while running is run as well if it is due by then.
+     *
+     * @param time The time to move to. Does nothing if it is not after the current time.
+     */
+    public void advanceTo(long time) {
+        while (!queue.isEmpty() && queue.get(0).dueTime <= time) {
+            final Work work = poll();
+            now = Math.max(now, work.dueTime);
+            run(work);
+        }
+        now = Math.max(now, time);
+    }
+
+    /**
+     * Runs all scheduled work, moving the clock to the time each is due, until nothing is scheduled.
+     *
+     * @return The number of work items that have been run.
+     */
+    public int runUntilIdle() {
+        int count = 0;
+        while (!queue.isEmpty()) {
+            final Work work = poll();
+            now = Math.max(now, work.dueTime);
+            run(work);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of scheduled work items.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return The time the next work is due, or <code>-1</code> if nothing is scheduled.
+     */
+    public long getNextDueTime() {
+        return queue.isEmpty() ? -1 : queue.get(0).dueTime;
+    }
+
+    private void run(Work work) {
+        final int what = work.what;
+        final Object obj = work.obj;
+        final int arg1 = work.arg1;
+        final long dueTime = work.dueTime;
+        recycle(work);
+        if (null != target) {
+            target.onDue(what, obj, arg1, dueTime);
+        }
+    }
+
+    private void recycle(Work work) {
+        work.obj = null;
+        free.add(work);
+    }
+
+    @Override
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return now;
+    }
+
+    @Override
+    public boolean isCurrentThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public void schedule(int what, Object obj, int arg1, long delayInMilliseconds) {
+        final int last = free.size() - 1;
+        final Work work = last >= 0 ? free.remove(last) : new Work();
+        work.what = what;
+        work.obj = obj;
+        work.arg1 = arg1;
+        work.dueTime = now + Math.max(0, delayInMilliseconds);
+        work.sequence = sequence++;
+        queue.add(work);
+        siftUp(queue.size() - 1);
+    }
+
+    @Override
+    public boolean isScheduled(int what, Object obj) {
+        for (int i = 0; i < queue.size(); i++) {
+            if (queue.get(i).matches(what, obj)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void cancel(int what, Object obj) {
+        // The remaining work is moved together, then the heap is rebuilt if anything was removed.
+        final int size = queue.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            final Work work = queue.get(i);
+            if (work.matches(what, obj)) {
+                recycle(work);
+            } else {
+                queue.set(kept++, work);
+            }
+        }
+        if (kept == size) {
+            return;
+        }
+        for (int i = size - 1; i >= kept; i--) {
+            queue.remove(i);
+        }
+        for (int i = kept / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Takes the work that is due first off the heap.
+     */
+    private Work poll() {
+        final Work first = queue.get(0);
+        final Work last = queue.remove(queue.size() - 1);
+        if (!queue.isEmpty()) {
+            queue.set(0, last);
+            siftDown(0);
+        }
+        return first;
+    }
+
+    private void siftUp(int index) {
+        final Work work = queue.get(index);
+        while (index > 0) {
+            final int parent = (index - 1) / 2;
+            final Work parentWork = queue.get(parent);
+            if (!work.isDueBefore(parentWork)) {
+                break;
+            }
+            queue.set(index, parentWork);
+            index = parent;
+        }
+        queue.set(index, work);
+    }
+
+    private void siftDown(int index) {
+        final int size = queue.size();
+        final Work work = queue.get(index);
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && queue.get(child + 1).isDueBefore(queue.get(child))) {
+                child++;
+            }
+            final Work childWork = queue.get(child);
+            if (!childWork.isDueBefore(work)) {
+                break;
+            }
+            queue.set(index, childWork);
+            index = child;
+        }
+        queue.set(index, work);
+    }
+
+    private static final class Work {
+        int what;
+        Object obj;
+        int arg1;
+        long dueTime;
+        long sequence;
+
+        boolean matches(int what, Object obj) {
+            return this.what == what && (null == obj || this.obj == obj);
+        }
+
+        /**
+         * Work due at the same time is ordered by the sequence it has been scheduled in.
+         */
+        boolean isDueBefore(Work other) {
+            return dueTime != other.dueTime ? dueTime < other.dueTime : sequence < other.sequence;
+        }
+    }
+}
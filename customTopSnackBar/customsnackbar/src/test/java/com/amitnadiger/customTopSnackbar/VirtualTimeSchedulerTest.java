@@ -0,0 +1,203 @@
+package com.amitnadiger.customTopSnackbar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests of {@link VirtualTimeScheduler}, which runs on the development machine (host).
+ */
+public class VirtualTimeSchedulerTest {
+    private static final int FIRST = 1;
+    private static final int SECOND = 2;
+
+    private VirtualTimeScheduler scheduler;
+    private final List<String> runs = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        scheduler = new VirtualTimeScheduler(1000);
+        scheduler.setTarget(new SnackbarScheduler.Target() {
+            @Override
+            public void onDue(int what, Object obj, int arg1, long dueTime) {
+                runs.add(what + ":" + obj + ":" + arg1 + "@" + dueTime + "/" + scheduler.uptimeMillis());
+            }
+        });
+    }
+
+    @Test
+    public void clockOnlyMovesWhenAdvanced() {
+        assertEquals(1000, scheduler.uptimeMillis());
+        scheduler.schedule(FIRST, "a", 0, 50);
+        assertEquals(1000, scheduler.uptimeMillis());
+        assertTrue(runs.isEmpty());
+        scheduler.advanceBy(20);
+        assertEquals(1020, scheduler.uptimeMillis());
+        assertTrue(runs.isEmpty());
+    }
+
+    @Test
+    public void runsDueWorkInOrderOfDueTimeThenScheduling() {
+        scheduler.schedule(FIRST, "late", 0, 30);
+        scheduler.schedule(FIRST, "early", 0, 10);
+        scheduler.schedule(SECOND, "early", 1, 10);
+        scheduler.advanceBy(100);
+        assertEquals(3, runs.size());
+        assertEquals("1:early:0@1010/1010", runs.get(0));
+        assertEquals("2:early:1@1010/1010", runs.get(1));
+        assertEquals("1:late:0@1030/1030", runs.get(2));
+        assertEquals(1100, scheduler.uptimeMillis());
+    }
+
+    @Test
+    public void advanceToRunsWorkDueAtTheTargetTimeOnly() {
+        scheduler.schedule(FIRST, "a", 0, 10);
+        scheduler.schedule(FIRST, "b", 0, 11);
+        scheduler.advanceTo(1009);
+        assertTrue(runs.isEmpty());
+        scheduler.advanceTo(1010);
+        assertEquals(1, runs.size());
+        assertEquals(1, scheduler.getPendingCount());
+        assertEquals(1011, scheduler.getNextDueTime());
+    }
+
+    @Test
+    public void advanceToThePastDoesNotMoveTheClockBack() {
+        scheduler.advanceTo(500);
+        assertEquals(1000, scheduler.uptimeMillis());
+    }
+
+    @Test
+    public void negativeDelayIsDueNow() {
+        scheduler.schedule(FIRST, "a", 0, -10);
+        assertEquals(1000, scheduler.getNextDueTime());
+        scheduler.advanceBy(0);
+        assertEquals(1, runs.size());
+    }
+
+    @Test
+    public void workScheduledWhileRunningRunsIfDue() {
+        scheduler.setTarget(new SnackbarScheduler.Target() {
+            @Override
+            public void onDue(int what, Object obj, int arg1, long dueTime) {
+                runs.add(String.valueOf(obj));
+                if (FIRST == what) {
+                    scheduler.schedule(SECOND, "chained", 0, 5);
+                    scheduler.schedule(SECOND, "later", 0, 50);
+                }
+            }
+        });
+        scheduler.schedule(FIRST, "first", 0, 10);
+        scheduler.advanceBy(20);
+        assertEquals(2, runs.size());
+        assertEquals("first", runs.get(0));
+        assertEquals("chained", runs.get(1));
+        assertEquals(1, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void cancelRemovesMatchingWork() {
+        final Object a = new Object();
+        final Object b = new Object();
+        scheduler.schedule(FIRST, a, 0, 10);
+        scheduler.schedule(FIRST, b, 0, 10);
+        scheduler.schedule(SECOND, a, 0, 10);
+        assertTrue(scheduler.isScheduled(FIRST, a));
+        scheduler.cancel(FIRST, a);
+        assertFalse(scheduler.isScheduled(FIRST, a));
+        assertTrue(scheduler.isScheduled(FIRST, b));
+        assertTrue(scheduler.isScheduled(SECOND, a));
+        scheduler.cancel(SECOND, null);
+        assertFalse(scheduler.isScheduled(SECOND, a));
+        assertEquals(1, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void cancelKeepsTheRemainingWorkInOrder() {
+        final int[] delays = {70, 10, 50, 30, 90, 20, 80, 40, 60, 10};
+        for (int i = 0; i < delays.length; i++) {
+            scheduler.schedule(0 == i % 3 ? SECOND : FIRST, "w" + i, 0, delays[i]);
+        }
+        scheduler.cancel(SECOND, null);
+        scheduler.advanceBy(100);
+        assertEquals(6, runs.size());
+        assertEquals("1:w1:0@1010/1010", runs.get(0));
+        assertEquals("1:w5:0@1020/1020", runs.get(1));
+        assertEquals("1:w7:0@1040/1040", runs.get(2));
+        assertEquals("1:w2:0@1050/1050", runs.get(3));
+        assertEquals("1:w8:0@1060/1060", runs.get(4));
+        assertEquals("1:w4:0@1090/1090", runs.get(5));
+    }
+
+    @Test
+    public void warmedUpSchedulingAndCancellingDoNotAllocate() {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final Object a = new Object();
+        final Object b = new Object();
+        scheduler.setTarget(null);
+        for (int i = 0; i < 10000; i++) {
+            scheduleAndCancel(a, b);
+        }
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            scheduleAndCancel(a, b);
+        }
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertEquals(0, allocated);
+    }
+
+    private void scheduleAndCancel(Object a, Object b) {
+        scheduler.schedule(FIRST, a, 0, 30);
+        scheduler.schedule(SECOND, a, 0, 10);
+        scheduler.schedule(FIRST, b, 0, 20);
+        scheduler.isScheduled(SECOND, a);
+        scheduler.cancel(SECOND, a);
+        scheduler.cancel(FIRST, b);
+        scheduler.advanceBy(50);
+    }
+
+    @Test
+    public void isScheduledWithoutObjectMatchesAnyObject() {
+        scheduler.schedule(FIRST, "a", 0, 10);
+        assertTrue(scheduler.isScheduled(FIRST, null));
+        assertFalse(scheduler.isScheduled(SECOND, null));
+    }
+
+    @Test
+    public void runUntilIdleRunsEverythingAndMovesTheClock() {
+        scheduler.schedule(FIRST, "a", 0, 10);
+        scheduler.schedule(FIRST, "b", 0, 5000);
+        assertEquals(2, scheduler.runUntilIdle());
+        assertEquals(6000, scheduler.uptimeMillis());
+        assertEquals(0, scheduler.getPendingCount());
+        assertEquals(-1, scheduler.getNextDueTime());
+        assertEquals(0, scheduler.runUntilIdle());
+    }
+
+    @Test
+    public void runsOnTheThreadThatCreatedIt() throws InterruptedException {
+        assertTrue(scheduler.isCurrentThread());
+        final boolean[] isCurrentThread = {true};
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                isCurrentThread[0] = scheduler.isCurrentThread();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertFalse(isCurrentThread[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void managerRejectsNullScheduler() {
+        new SnackbarManager(null);
+    }
+}